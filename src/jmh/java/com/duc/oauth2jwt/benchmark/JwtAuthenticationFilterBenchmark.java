@@ -0,0 +1,124 @@
+package com.duc.oauth2jwt.benchmark;
+
+import com.duc.oauth2jwt.model.Role;
+import com.duc.oauth2jwt.model.User;
+import com.duc.oauth2jwt.repository.UserRepository;
+import com.duc.oauth2jwt.security.CustomUserDetailsService;
+import com.duc.oauth2jwt.security.JwtAuthenticationFilter;
+import com.duc.oauth2jwt.security.JwtTokenProvider;
+import com.duc.oauth2jwt.security.TokenVersionCache;
+import com.duc.oauth2jwt.security.UserDetailsCache;
+import com.duc.oauth2jwt.service.AccessTokenDenylist;
+import com.duc.oauth2jwt.service.CacheInvalidationService;
+import com.duc.oauth2jwt.service.TokenVersionService;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+// Full per-request authentication path with the user repository mocked out, so only filter,
+// JWT verification and principal resolution are measured
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"HS256", "HS512"})
+    private String algorithm;
+
+    @Param({"false", "true"})
+    private boolean statelessAuthentication;
+
+    @Param({"false", "true"})
+    private boolean userCacheEnabled;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain filterChain;
+
+    @Setup
+    public void setUp() {
+        JwtTokenProvider tokenProvider = JwtTokenProviderBenchmark.newTokenProvider(
+                SignatureAlgorithm.valueOf(algorithm), statelessAuthentication);
+
+        Role userRole = new Role();
+        userRole.setId(1L);
+        userRole.setName(Role.RoleName.ROLE_USER);
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("bench@example.com");
+        user.setPassword("encodedPassword");
+        user.setRoles(new HashSet<>(Set.of(userRole)));
+
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
+
+        UserDetailsCache userDetailsCache = new UserDetailsCache(userCacheEnabled, 10_000, Duration.ofMinutes(5),
+                new SimpleMeterRegistry());
+        filter = new JwtAuthenticationFilter(tokenProvider, new CustomUserDetailsService(userRepository),
+                userDetailsCache, emptyDenylist(), unversionedTokens());
+
+        request = new MockHttpServletRequest("GET", "/user/me");
+        request.addHeader("Authorization", "Bearer " + tokenProvider.generateToken(user));
+        response = new MockHttpServletResponse();
+        filterChain = (servletRequest, servletResponse) -> {
+        };
+    }
+
+    // No user has bumped their version: after the first request every check is a local cache hit
+    @SuppressWarnings("unchecked")
+    private static TokenVersionService unversionedTokens() {
+        StringRedisTemplate redisTemplate = Mockito.mock(StringRedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenReturn(Mockito.mock(ValueOperations.class));
+        return new TokenVersionService(redisTemplate,
+                new TokenVersionCache(10_000, Duration.ofMinutes(10), new SimpleMeterRegistry()),
+                Mockito.mock(CacheInvalidationService.class), new SimpleMeterRegistry());
+    }
+
+    // Nothing revoked: every lookup is answered by the local Bloom filter, which is the common path
+    @SuppressWarnings("unchecked")
+    private static AccessTokenDenylist emptyDenylist() {
+        StringRedisTemplate redisTemplate = Mockito.mock(StringRedisTemplate.class);
+        ZSetOperations<String, String> zSetOperations = Mockito.mock(ZSetOperations.class);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScore(anyString(), anyDouble(), anyDouble())).thenReturn(Collections.emptySet());
+
+        AccessTokenDenylist denylist = new AccessTokenDenylist(redisTemplate, new SimpleMeterRegistry(),
+                "access-token-revocations", 100_000, 0.01);
+        denylist.init();
+        return denylist;
+    }
+
+    @Benchmark
+    public Authentication doFilter() throws Exception {
+        try {
+            filter.doFilter(request, response, filterChain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.duc.oauth2jwt.benchmark;
+
+import com.duc.oauth2jwt.security.JwtTokenProvider;
+import com.duc.oauth2jwt.security.UserPrincipal;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Issue and verify cost per signing algorithm; roleCount grows the token body through the stateless roles claim
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    static final String SECRET =
+            "c3ByaW5nLWJvb3Qtc2VjdXJpdHktb2F1dGgyLWp3dC1zZWNyZXQta2V5LXZlcnktbG9uZy1zZWNyZXQta2V5LXVzZWQtdG8tc2lnbi10aGUtdG9rZW4=";
+
+    @Param({"HS256", "HS384", "HS512"})
+    private String algorithm;
+
+    @Param({"0", "8", "32"})
+    private int roleCount;
+
+    private JwtTokenProvider tokenProvider;
+    private Authentication authentication;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = newTokenProvider(SignatureAlgorithm.valueOf(algorithm), true);
+
+        List<GrantedAuthority> authorities = IntStream.range(0, roleCount)
+                .mapToObj(i -> (GrantedAuthority) new SimpleGrantedAuthority("ROLE_BENCHMARK_" + i))
+                .toList();
+        UserPrincipal principal = new UserPrincipal(1L, "bench@example.com", null, authorities, Collections.emptyMap());
+        authentication = new UsernamePasswordAuthenticationToken(principal, null, authorities);
+        token = tokenProvider.generateToken(authentication);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenProvider.generateToken(authentication);
+    }
+
+    @Benchmark
+    public String generateTokenFromUsername() {
+        return tokenProvider.generateTokenFromUsername("bench@example.com");
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public String getUsernameFromToken() {
+        return tokenProvider.getUsernameFromToken(token);
+    }
+
+    static JwtTokenProvider newTokenProvider(SignatureAlgorithm signatureAlgorithm, boolean stateless) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        provider.setJwtSecret(SECRET);
+        provider.setJwtExpirationInMs(TimeUnit.HOURS.toMillis(1));
+        provider.setSignatureAlgorithm(signatureAlgorithm);
+        provider.setStatelessAuthentication(stateless);
+        provider.init();
+        return provider;
+    }
+}
@@ -2,8 +2,10 @@ package com.duc.oauth2jwt;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class Oauth2JwtApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,75 @@
+package com.duc.oauth2jwt.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.BackOffExecution;
+
+// The stock container fails the application startup when the first subscription cannot connect. Pub/sub only
+// carries invalidation hints here, so the subscription is made on a background thread instead and retried with
+// the recovery backoff until Redis is reachable; once subscribed, Lettuce re-subscribes after reconnects.
+@Slf4j
+public class BackgroundRedisMessageListenerContainer extends RedisMessageListenerContainer {
+
+    private final BackOff backOff;
+
+    private volatile boolean running;
+    private volatile Thread subscriber;
+
+    public BackgroundRedisMessageListenerContainer(BackOff backOff) {
+        this.backOff = backOff;
+        setRecoveryBackoff(backOff);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::subscribe, "redis-subscriber-start");
+        thread.setDaemon(true);
+        subscriber = thread;
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        Thread thread = subscriber;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        super.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void subscribe() {
+        BackOffExecution execution = backOff.start();
+        while (running) {
+            try {
+                super.start();
+                return;
+            } catch (RuntimeException ex) {
+                // Reset the container so the next attempt subscribes from scratch
+                super.stop();
+                long delay = execution.nextBackOff();
+                if (delay == BackOffExecution.STOP) {
+                    log.error("Giving up subscribing to Redis channels", ex);
+                    return;
+                }
+                log.warn("Could not subscribe to Redis channels, retrying in {} ms: {}", delay, ex.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.duc.oauth2jwt.config;
 
+import com.duc.oauth2jwt.service.AccessTokenDenylist;
+import com.duc.oauth2jwt.service.CacheInvalidationService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -7,8 +9,11 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.util.backoff.ExponentialBackOff;
 
 @Configuration
 public class RedisConfig {
@@ -51,4 +56,21 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       CacheInvalidationService cacheInvalidationService,
+                                                                       AccessTokenDenylist accessTokenDenylist) {
+        // Subscribes in the background so the application still starts while Redis is unreachable
+        ExponentialBackOff backOff = new ExponentialBackOff(1000L, 2.0);
+        backOff.setMaxInterval(30000L);
+        RedisMessageListenerContainer container = new BackgroundRedisMessageListenerContainer(backOff);
+        container.setConnectionFactory(connectionFactory);
+
+        // Lettuce re-subscribes after a reconnect, which makes the service flush its local caches
+        container.addMessageListener(cacheInvalidationService, new ChannelTopic(cacheInvalidationService.getChannel()));
+        // and the access token denylist rebuilds its filter from Redis
+        container.addMessageListener(accessTokenDenylist, new ChannelTopic(accessTokenDenylist.getChannel()));
+        return container;
+    }
 }
@@ -1,6 +1,12 @@
 package com.duc.oauth2jwt.controller;
 
+import com.duc.oauth2jwt.dto.BulkRoleRequest;
+import com.duc.oauth2jwt.dto.BulkRoleResultDto;
 import com.duc.oauth2jwt.dto.UserDto;
+import com.duc.oauth2jwt.dto.UserPageDto;
+import com.duc.oauth2jwt.model.Role;
+import com.duc.oauth2jwt.model.User;
+import com.duc.oauth2jwt.service.UserExportService;
 import com.duc.oauth2jwt.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -8,12 +14,17 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
-import java.util.List;
+import java.time.Duration;
 
 @RestController
 @RequestMapping("/admin")
@@ -23,20 +34,83 @@ import java.util.List;
 public class AdminController {
 
     private final UserService userService;
+    private final UserExportService userExportService;
+
+    // Only the export may run this long; every other async request keeps the default timeout
+    @Value("${app.admin.users.export-timeout:30m}")
+    private Duration exportTimeout;
 
     @GetMapping("/users")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(
-            summary = "Get all users",
-            description = "Retrieves a list of all registered users in the system. Only accessible to users with ADMIN role."
+            summary = "List users",
+            description = "Returns one page of users ordered by id, optionally filtered by role and provider. " +
+                    "Pass the returned nextCursor as 'cursor' to fetch the following page. Only accessible to users with ADMIN role."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved a page of users"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or filter value"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role")
+    })
+    public ResponseEntity<UserPageDto> getUsers(
+            @Parameter(description = "Cursor returned as nextCursor by the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped by app.admin.users.max-page-size")
+            @RequestParam(required = false) Integer size,
+            @Parameter(description = "Only users having this role", example = "ROLE_ADMIN")
+            @RequestParam(required = false) Role.RoleName role,
+            @Parameter(description = "Only users registered through this provider", example = "GOOGLE")
+            @RequestParam(required = false) User.AuthProvider provider
+    ) {
+        return ResponseEntity.ok(userService.getUsers(cursor, size, role, provider));
+    }
+
+    @GetMapping("/users/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Export all users",
+            description = "Streams every user as NDJSON (one UserDto per line) or CSV while reading the table through a " +
+                    "forward-only cursor. Only accessible to users with ADMIN role."
     )
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved list of users"),
+            @ApiResponse(responseCode = "200", description = "Export stream started"),
+            @ApiResponse(responseCode = "400", description = "Unsupported export format"),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token"),
             @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role")
     })
-    public ResponseEntity<List<UserDto>> getAllUsers() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public WebAsyncTask<Void> exportUsers(
+            @Parameter(description = "Output format: ndjson or csv", example = "ndjson")
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response
+    ) {
+        UserExportService.Format exportFormat = UserExportService.Format.from(format);
+        response.setContentType(exportFormat.getMediaType().toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=users." + exportFormat.getFileExtension());
+
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            userExportService.export(exportFormat, response.getOutputStream());
+            return null;
+        });
+    }
+
+    @PostMapping("/users/roles")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Grant or revoke a role on many users",
+            description = "Grants or revokes a role on the listed user ids, or on every user matching the filter, in a " +
+                    "single transaction and returns the outcome per user. Only accessible to users with ADMIN role."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Roles updated; see the per-user results"),
+            @ApiResponse(responseCode = "400", description = "Invalid request, too many users, or ROLE_USER revoked"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role")
+    })
+    public ResponseEntity<BulkRoleResultDto> updateRoles(
+            @Valid @RequestBody BulkRoleRequest request
+    ) {
+        return ResponseEntity.ok(userService.updateRoles(request));
     }
 
     @PutMapping("/users/{id}/give-admin")
@@ -76,4 +150,24 @@ public class AdminController {
     ) {
         return ResponseEntity.ok(userService.removeAdminRole(id));
     }
+
+    @PutMapping("/users/{id}/unlock")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Unlock a user account",
+            description = "Lifts the lock placed on the user's account after repeated failed logins and resets its failed login count. Only accessible to users with ADMIN role."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Account unlocked"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role"),
+            @ApiResponse(responseCode = "404", description = "User with specified ID not found")
+    })
+    public ResponseEntity<Void> unlockUser(
+            @Parameter(description = "ID of the user to unlock", required = true)
+            @PathVariable Long id
+    ) {
+        userService.unlockUser(id);
+        return ResponseEntity.noContent().build();
+    }
 }
\ No newline at end of file
@@ -3,14 +3,17 @@ package com.duc.oauth2jwt.controller;
 import com.duc.oauth2jwt.dto.AuthRequest;
 import com.duc.oauth2jwt.dto.AuthResponse;
 import com.duc.oauth2jwt.dto.RegisterRequest;
+import com.duc.oauth2jwt.service.AuthRateLimiter;
 import com.duc.oauth2jwt.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -21,6 +24,7 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
+    private final AuthRateLimiter rateLimiter;
 
     @PostMapping("/login")
     @Operation(
@@ -30,12 +34,16 @@ public class AuthController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully authenticated user, returns access and refresh tokens"),
             @ApiResponse(responseCode = "400", description = "Invalid request body or credentials"),
-            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid email or password")
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid email or password"),
+            @ApiResponse(responseCode = "429", description = "Too many attempts from this IP or for this email, retry after the Retry-After delay"),
+            @ApiResponse(responseCode = "503", description = "Password hashing capacity exhausted, retry after the Retry-After delay")
     })
     public ResponseEntity<AuthResponse> login(
             @Parameter(description = "Login request containing email and password", required = true)
-            @Valid @RequestBody AuthRequest loginRequest
+            @Valid @RequestBody AuthRequest loginRequest,
+            HttpServletRequest request
     ) {
+        rateLimiter.check(AuthRateLimiter.Endpoint.LOGIN, request.getRemoteAddr(), loginRequest.getEmail());
         return ResponseEntity.ok(authService.login(loginRequest));
     }
 
@@ -47,36 +55,44 @@ public class AuthController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully registered user, returns access and refresh tokens"),
             @ApiResponse(responseCode = "400", description = "Invalid request body or email already exists"),
-            @ApiResponse(responseCode = "409", description = "Conflict - Email already registered")
+            @ApiResponse(responseCode = "409", description = "Conflict - Email already registered"),
+            @ApiResponse(responseCode = "429", description = "Too many registrations from this IP or for this email, retry after the Retry-After delay"),
+            @ApiResponse(responseCode = "503", description = "Password hashing capacity exhausted, retry after the Retry-After delay")
     })
     public ResponseEntity<AuthResponse> register(
             @Parameter(description = "Registration request containing name, email, and password", required = true)
-            @Valid @RequestBody RegisterRequest registerRequest
+            @Valid @RequestBody RegisterRequest registerRequest,
+            HttpServletRequest request
     ) {
+        rateLimiter.check(AuthRateLimiter.Endpoint.REGISTER, request.getRemoteAddr(), registerRequest.getEmail());
         return ResponseEntity.ok(authService.register(registerRequest));
     }
 
     @PostMapping("/refresh")
     @Operation(
             summary = "Refresh access token",
-            description = "Generates a new access token using a valid refresh token."
+            description = "Generates a new access token using a valid refresh token. The refresh token is rotated: the one sent is consumed and a new one is returned."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully refreshed access token"),
             @ApiResponse(responseCode = "400", description = "Invalid or missing refresh token"),
-            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or expired refresh token")
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or expired refresh token"),
+            @ApiResponse(responseCode = "429", description = "Too many refreshes from this IP, retry after the Retry-After delay")
     })
     public ResponseEntity<AuthResponse> refreshToken(
             @Parameter(description = "Refresh token used to generate a new access token", required = true)
-            @RequestParam String refreshToken
+            @RequestParam String refreshToken,
+            HttpServletRequest request
     ) {
+        rateLimiter.check(AuthRateLimiter.Endpoint.REFRESH, request.getRemoteAddr(), null);
         return ResponseEntity.ok(authService.refreshToken(refreshToken));
     }
 
     @PostMapping("/logout")
     @Operation(
             summary = "User logout",
-            description = "Invalidates the provided refresh token to log out the user."
+            description = "Invalidates the provided refresh token to log out the user. When the request carries the " +
+                    "access token as a Bearer Authorization header, that token is revoked immediately as well."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully logged out"),
@@ -85,9 +101,14 @@ public class AuthController {
     })
     public ResponseEntity<Void> logout(
             @Parameter(description = "Refresh token to invalidate for logout", required = true)
-            @RequestParam String refreshToken
+            @RequestParam String refreshToken,
+            @Parameter(description = "Bearer access token to revoke together with the refresh token")
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization
     ) {
-        authService.logout(refreshToken);
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7)
+                : null;
+        authService.logout(refreshToken, accessToken);
         return ResponseEntity.ok().build();
     }
 }
\ No newline at end of file
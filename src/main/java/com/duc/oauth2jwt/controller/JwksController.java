@@ -0,0 +1,50 @@
+package com.duc.oauth2jwt.controller;
+
+import com.duc.oauth2jwt.security.JwtKeyRing;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+@RestController
+@Tag(name = "JWKS Controller", description = "Public keys for verifying access tokens without calling this service")
+public class JwksController {
+
+    private final JwtKeyRing keyRing;
+    private final CacheControl cacheControl;
+
+    public JwksController(JwtKeyRing keyRing,
+                          @Value("${app.jwt.jwks.max-age:PT5M}") Duration maxAge) {
+        this.keyRing = keyRing;
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    @Operation(
+            summary = "Get the JSON Web Key Set",
+            description = "Returns the public keys access tokens are signed with, selected by the kid token header. " +
+                    "Keys are published before they start signing, so a cached copy stays valid for max-age. " +
+                    "Empty when tokens are signed with a shared HMAC secret."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Current key set"),
+            @ApiResponse(responseCode = "304", description = "Key set unchanged since the ETag sent in If-None-Match")
+    })
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        JwtKeyRing.Jwks jwks = keyRing.jwks();
+
+        // Spring answers 304 itself when If-None-Match carries this ETag
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .eTag(jwks.etag())
+                .body(jwks.body());
+    }
+}
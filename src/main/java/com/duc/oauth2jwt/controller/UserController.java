@@ -1,5 +1,6 @@
 package com.duc.oauth2jwt.controller;
 
+import com.duc.oauth2jwt.dto.SessionDto;
 import com.duc.oauth2jwt.dto.UserDto;
 import com.duc.oauth2jwt.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,6 +14,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/user")
 @RequiredArgsConstructor
@@ -37,6 +40,54 @@ public class UserController {
         return ResponseEntity.ok(userService.getCurrentUser());
     }
 
+    @GetMapping("/sessions")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(
+            summary = "List current user sessions",
+            description = "Lists the active refresh-token sessions of the currently authenticated user. Requires USER role."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved active sessions"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User does not have USER role")
+    })
+    public ResponseEntity<List<SessionDto>> getCurrentUserSessions() {
+        return ResponseEntity.ok(userService.getCurrentUserSessions());
+    }
+
+    @DeleteMapping("/sessions")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(
+            summary = "Revoke all current user sessions",
+            description = "Revokes every refresh token of the currently authenticated user. Requires USER role."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Successfully revoked all sessions"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User does not have USER role")
+    })
+    public ResponseEntity<Void> revokeCurrentUserSessions() {
+        userService.revokeCurrentUserSessions();
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/logout-all")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(
+            summary = "Log out everywhere",
+            description = "Revokes every refresh token of the currently authenticated user and invalidates all access " +
+                    "tokens issued to them so far, including the one used for this call. Requires USER role."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Successfully revoked all tokens"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User does not have USER role")
+    })
+    public ResponseEntity<Void> logoutEverywhere() {
+        userService.logoutEverywhere();
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('USER')")
     @Operation(
@@ -0,0 +1,53 @@
+package com.duc.oauth2jwt.dto;
+
+import com.duc.oauth2jwt.model.Role;
+import com.duc.oauth2jwt.model.User;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request object for granting or revoking a role on many users at once")
+public class BulkRoleRequest {
+
+    public enum Action {
+        GRANT,
+        REVOKE
+    }
+
+    @NotNull
+    @Schema(description = "Whether the role is granted or revoked", example = "GRANT", required = true)
+    private Action action;
+
+    @NotNull
+    @Schema(description = "Role to grant or revoke", example = "ROLE_ADMIN", required = true)
+    private Role.RoleName role;
+
+    @Schema(description = "Ids of the users to update; either this or filter must be given", example = "[1, 2, 3]")
+    private List<Long> userIds;
+
+    @Schema(description = "Selects the users to update instead of listing their ids")
+    private Filter filter;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Users matching every given criterion are updated")
+    public static class Filter {
+
+        @Schema(description = "Only users having this role", example = "ROLE_USER")
+        private Role.RoleName role;
+
+        @Schema(description = "Only users registered through this provider", example = "GOOGLE")
+        private User.AuthProvider provider;
+    }
+}
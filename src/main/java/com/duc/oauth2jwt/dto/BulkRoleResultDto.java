@@ -0,0 +1,55 @@
+package com.duc.oauth2jwt.dto;
+
+import com.duc.oauth2jwt.model.Role;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Outcome of a bulk role change, one entry per requested user")
+public class BulkRoleResultDto {
+
+    public enum Status {
+        UPDATED,
+        UNCHANGED,
+        NOT_FOUND
+    }
+
+    @Schema(description = "Action that was applied", example = "GRANT")
+    private BulkRoleRequest.Action action;
+
+    @Schema(description = "Role that was granted or revoked", example = "ROLE_ADMIN")
+    private Role.RoleName role;
+
+    @Schema(description = "Number of users whose roles changed", example = "2")
+    private int updated;
+
+    @Schema(description = "Number of users that already had the requested state", example = "1")
+    private int unchanged;
+
+    @Schema(description = "Number of requested ids that do not exist", example = "0")
+    private int notFound;
+
+    @Schema(description = "Per-user outcome in request order")
+    private List<Item> results;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+
+        @Schema(description = "Id of the user", example = "1")
+        private Long userId;
+
+        @Schema(description = "What happened to this user", example = "UPDATED")
+        private Status status;
+    }
+}
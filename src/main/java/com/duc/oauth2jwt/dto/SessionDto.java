@@ -0,0 +1,26 @@
+package com.duc.oauth2jwt.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Data transfer object representing an active refresh-token session")
+public class SessionDto {
+
+    @Schema(description = "Opaque identifier of the session", example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+    private String id;
+
+    @Schema(description = "Time the session was created, if known", example = "2024-11-24T00:00:00Z")
+    private Instant createdAt;
+
+    @Schema(description = "Time the refresh token of the session expires", example = "2024-12-01T00:00:00Z")
+    private Instant expiresAt;
+}
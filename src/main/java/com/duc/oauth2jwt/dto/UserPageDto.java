@@ -0,0 +1,23 @@
+package com.duc.oauth2jwt.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One page of users ordered by id")
+public class UserPageDto {
+
+    @Schema(description = "Users on this page")
+    private List<UserDto> items;
+
+    @Schema(description = "Cursor to pass as 'cursor' to fetch the next page, or null when this is the last page", example = "MTAw")
+    private String nextCursor;
+}
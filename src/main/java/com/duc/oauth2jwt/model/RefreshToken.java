@@ -30,6 +30,8 @@ public class RefreshToken implements Serializable {
     private String userEmail;
 
     private Instant expiryDate;
+
+    private Instant createdAt;
     
     @TimeToLive
     private Long timeToLive; // in seconds
@@ -0,0 +1,228 @@
+package com.duc.oauth2jwt.repository;
+
+import com.duc.oauth2jwt.model.RefreshToken;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// Refresh tokens keyed by the SHA-256 of the token itself, so lookup and revocation are a single round trip.
+// Token values start with their owner's id, and every key of a user carries the {userId} hash tag: the caller
+// can name all keys a script touches, and they all live in the same cluster slot.
+@Repository
+@RequiredArgsConstructor
+public class RefreshTokenStore {
+
+    public static final String TOKEN_KEY_PREFIX = "refresh_token:";
+    public static final String SESSIONS_KEY_PREFIX = "refresh_token:sessions:";
+    // Owner of a token migrated from the @RedisHash repository, whose value does not start with the user id
+    public static final String OWNER_KEY_PREFIX = "refresh_token:owner:";
+
+    private static final char USER_ID_SEPARATOR = '.';
+
+    private static final RedisScript<Long> SAVE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/refresh_token_save.lua"), Long.class);
+    private static final RedisScript<Long> DELETE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/refresh_token_delete.lua"), Long.class);
+    private static final RedisScript<Long> DELETE_BY_USER_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/refresh_token_delete_by_user.lua"), Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ROTATE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/refresh_token_rotate.lua"), List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SESSIONS_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/refresh_token_sessions.lua"), List.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public static String newTokenValue(Long userId) {
+        return userId + String.valueOf(USER_ID_SEPARATOR) + UUID.randomUUID();
+    }
+
+    public RefreshToken save(RefreshToken refreshToken) {
+        String hash = hash(refreshToken.getToken());
+        Instant createdAt = Instant.now();
+        Long userId = refreshToken.getUserId();
+
+        if (!userId.equals(userIdOf(refreshToken.getToken()))) {
+            Duration ttl = Duration.between(createdAt, refreshToken.getExpiryDate());
+            redisTemplate.opsForValue().set(OWNER_KEY_PREFIX + hash, String.valueOf(userId), ttl);
+        }
+        redisTemplate.execute(SAVE_SCRIPT,
+                List.of(tokenKey(userId, hash), sessionsKey(userId)),
+                String.valueOf(refreshToken.getUserId()),
+                refreshToken.getUserEmail(),
+                String.valueOf(refreshToken.getExpiryDate().toEpochMilli()),
+                String.valueOf(createdAt.toEpochMilli()),
+                hash);
+
+        refreshToken.setId(hash);
+        refreshToken.setCreatedAt(createdAt);
+        return refreshToken;
+    }
+
+    public boolean deleteByToken(String token) {
+        String hash = hash(token);
+        Long userId = ownerOf(token, hash);
+        if (userId == null) {
+            return false;
+        }
+        Long deleted = redisTemplate.execute(DELETE_SCRIPT, List.of(tokenKey(userId, hash), sessionsKey(userId)), hash);
+        return deleted != null && deleted > 0;
+    }
+
+    public long deleteByUserId(Long userId) {
+        String sessionsKey = sessionsKey(userId);
+        long deleted = 0;
+        // Token keys are named from the session members read first; a token saved in between is picked up by
+        // the next round
+        List<String> hashes = sessionMembers(sessionsKey);
+        while (!hashes.isEmpty()) {
+            List<String> keys = new ArrayList<>(hashes.size() + 1);
+            keys.add(sessionsKey);
+            hashes.forEach(hash -> keys.add(tokenKey(userId, hash)));
+            Long count = redisTemplate.execute(DELETE_BY_USER_SCRIPT, keys, hashes.toArray());
+            deleted += count != null ? count : 0;
+            hashes = sessionMembers(sessionsKey);
+        }
+        return deleted;
+    }
+
+    // The replacement token is created here because its value has to start with the owner's id
+    public Rotation rotate(String token, Instant newExpiryDate) {
+        String hash = hash(token);
+        Long userId = ownerOf(token, hash);
+        if (userId == null) {
+            return new Rotation(RotationStatus.NOT_FOUND, null);
+        }
+        String newToken = newTokenValue(userId);
+        String newHash = hash(newToken);
+
+        List<?> result = redisTemplate.execute(ROTATE_SCRIPT,
+                List.of(tokenKey(userId, hash), tokenKey(userId, newHash), sessionsKey(userId)),
+                String.valueOf(Instant.now().toEpochMilli()),
+                String.valueOf(newExpiryDate.toEpochMilli()),
+                hash,
+                newHash);
+
+        long status = result != null && !result.isEmpty() ? ((Number) result.get(0)).longValue() : 0;
+        if (status < 0) {
+            return new Rotation(RotationStatus.EXPIRED, null);
+        }
+        if (status == 0) {
+            return new Rotation(RotationStatus.NOT_FOUND, null);
+        }
+
+        RefreshToken refreshToken = RefreshToken.builder()
+                .id(newHash)
+                .token(newToken)
+                .userId(Long.valueOf(String.valueOf(result.get(1))))
+                .userEmail(String.valueOf(result.get(2)))
+                .expiryDate(newExpiryDate)
+                .createdAt(Instant.now())
+                .timeToLive(newExpiryDate.getEpochSecond() - Instant.now().getEpochSecond())
+                .build();
+        return new Rotation(RotationStatus.ROTATED, refreshToken);
+    }
+
+    // Live sessions of a user, oldest expiry first; the raw token values are never stored so they are not returned
+    public List<RefreshToken> findSessionsByUserId(Long userId) {
+        String sessionsKey = sessionsKey(userId);
+        List<String> hashes = sessionMembers(sessionsKey);
+        if (hashes.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> keys = new ArrayList<>(hashes.size() + 1);
+        keys.add(sessionsKey);
+        hashes.forEach(hash -> keys.add(tokenKey(userId, hash)));
+        List<Object> args = new ArrayList<>(hashes.size() + 1);
+        args.add(String.valueOf(Instant.now().toEpochMilli()));
+        args.addAll(hashes);
+
+        List<?> result = redisTemplate.execute(SESSIONS_SCRIPT, keys, args.toArray());
+        if (result == null) {
+            return List.of();
+        }
+
+        List<RefreshToken> sessions = new ArrayList<>(result.size() / 3);
+        for (int i = 0; i + 2 < result.size(); i += 3) {
+            String createdAt = String.valueOf(result.get(i + 2));
+            Instant expiryDate = Instant.ofEpochMilli((long) Double.parseDouble(String.valueOf(result.get(i + 1))));
+            sessions.add(RefreshToken.builder()
+                    .id(String.valueOf(result.get(i)))
+                    .userId(userId)
+                    .expiryDate(expiryDate)
+                    .createdAt(createdAt.isEmpty() ? null : Instant.ofEpochMilli(Long.parseLong(createdAt)))
+                    .build());
+        }
+        return sessions;
+    }
+
+    // Members oldest expiry first
+    private List<String> sessionMembers(String sessionsKey) {
+        Set<String> members = redisTemplate.opsForZSet().range(sessionsKey, 0, -1);
+        return members != null ? new ArrayList<>(members) : List.of();
+    }
+
+    // A forged id prefix only changes which keys are looked at, and the token hash is not found under them
+    private Long ownerOf(String token, String hash) {
+        Long userId = userIdOf(token);
+        if (userId != null) {
+            return userId;
+        }
+        String owner = redisTemplate.opsForValue().get(OWNER_KEY_PREFIX + hash);
+        return owner != null ? Long.valueOf(owner) : null;
+    }
+
+    static Long userIdOf(String token) {
+        int separator = token.indexOf(USER_ID_SEPARATOR);
+        if (separator <= 0) {
+            return null;
+        }
+        try {
+            return Long.valueOf(token.substring(0, separator));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static String tokenKey(Long userId, String hash) {
+        return TOKEN_KEY_PREFIX + "{" + userId + "}:" + hash;
+    }
+
+    private static String sessionsKey(Long userId) {
+        return SESSIONS_KEY_PREFIX + "{" + userId + "}";
+    }
+
+    public static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    public enum RotationStatus {
+        ROTATED,
+        NOT_FOUND,
+        EXPIRED
+    }
+
+    public record Rotation(RotationStatus status, RefreshToken refreshToken) {
+    }
+}
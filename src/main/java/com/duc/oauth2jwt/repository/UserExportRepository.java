@@ -0,0 +1,10 @@
+package com.duc.oauth2jwt.repository;
+
+import java.util.stream.Stream;
+
+// Fragment of UserRepository for the admin export, whose fetch size comes from configuration
+public interface UserExportRepository {
+
+    // Forward-only export cursor: flat rows ordered by user id, never attached to the persistence context
+    Stream<UserRoleRow> streamAllWithRoleNames();
+}
@@ -0,0 +1,31 @@
+package com.duc.oauth2jwt.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.stream.Stream;
+
+// Streaming is scoped to this one query: with a fetch size of Integer.MIN_VALUE MySQL Connector/J streams rows
+// one by one instead of buffering the whole result, while every other statement keeps the default behaviour
+public class UserExportRepositoryImpl implements UserExportRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.admin.users.export-fetch-size:" + Integer.MIN_VALUE + "}")
+    private int fetchSize;
+
+    @Override
+    public Stream<UserRoleRow> streamAllWithRoleNames() {
+        return entityManager.createQuery("SELECT new com.duc.oauth2jwt.repository.UserRoleRowValue(" +
+                        "u.id, u.email, u.name, u.imageUrl, r.name) " +
+                        "FROM User u LEFT JOIN u.roles r ORDER BY u.id ASC", UserRoleRowValue.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_CACHEABLE, false)
+                .getResultStream()
+                .map(UserRoleRow.class::cast);
+    }
+}
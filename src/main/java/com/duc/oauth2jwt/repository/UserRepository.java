@@ -1,16 +1,75 @@
 package com.duc.oauth2jwt.repository;
 
+import com.duc.oauth2jwt.model.Role;
 import com.duc.oauth2jwt.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserExportRepository {
+    // Roles are joined into the same select instead of a follow-up query per user
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByEmail(String email);
 
     Boolean existsByEmail(String email);
 
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByProviderAndProviderId(User.AuthProvider provider, String providerId);
+
+    // Keyset page: seeks past the last id of the previous page on the primary key instead of using OFFSET,
+    // so every page costs the same regardless of how deep it is. The Pageable only carries the LIMIT.
+    // Only ids are selected because a LIMIT cannot be combined with a collection fetch in SQL.
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterId " +
+            "AND (:provider IS NULL OR u.provider = :provider) " +
+            "AND (:role IS NULL OR EXISTS (SELECT r.id FROM u.roles r WHERE r.name = :role)) " +
+            "ORDER BY u.id ASC")
+    List<Long> findIdPageAfter(@Param("afterId") long afterId,
+                               @Param("role") Role.RoleName role,
+                               @Param("provider") User.AuthProvider provider,
+                               Pageable limit);
+
+    // Loads the given users together with their roles in a single statement
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.roles WHERE u.id IN :ids ORDER BY u.id ASC")
+    List<User> findAllWithRolesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Read-only profile lookups: only the UserDto columns plus one row per role, no entity or snapshot is created
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT u.id AS id, u.email AS email, u.name AS name, u.imageUrl AS imageUrl, r.name AS roleName " +
+            "FROM User u LEFT JOIN u.roles r WHERE u.email = :email")
+    List<UserRoleRow> findRowsByEmail(@Param("email") String email);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT u.id AS id, u.email AS email, u.name AS name, u.imageUrl AS imageUrl, r.name AS roleName " +
+            "FROM User u LEFT JOIN u.roles r WHERE u.id = :id")
+    List<UserRoleRow> findRowsById(@Param("id") Long id);
+
+    // Bulk role changes: one membership lookup plus one set-based write per chunk of ids, written straight to
+    // the join table instead of loading and saving each User
+    @Query("SELECT u.id AS id, u.email AS email, " +
+            "CASE WHEN EXISTS (SELECT r.id FROM u.roles r WHERE r.id = :roleId) THEN true ELSE false END AS member " +
+            "FROM User u WHERE u.id IN :ids")
+    List<UserRoleMembership> findRoleMembershipByIdIn(@Param("ids") Collection<Long> ids, @Param("roleId") Long roleId);
+
+    // The NOT EXISTS guard keeps a concurrent grant of the same role from failing on the primary key
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO user_roles (user_id, role_id) SELECT u.id, :roleId FROM users u " +
+            "WHERE u.id IN (:ids) AND NOT EXISTS " +
+            "(SELECT 1 FROM user_roles ur WHERE ur.user_id = u.id AND ur.role_id = :roleId)", nativeQuery = true)
+    int insertRole(@Param("ids") Collection<Long> ids, @Param("roleId") Long roleId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM user_roles WHERE role_id = :roleId AND user_id IN (:ids)", nativeQuery = true)
+    int deleteRole(@Param("ids") Collection<Long> ids, @Param("roleId") Long roleId);
 }
@@ -0,0 +1,10 @@
+package com.duc.oauth2jwt.repository;
+
+// Whether one user currently holds a given role; the email is what local principal caches are keyed by
+public interface UserRoleMembership {
+    Long getId();
+
+    String getEmail();
+
+    Boolean getMember();
+}
@@ -0,0 +1,16 @@
+package com.duc.oauth2jwt.repository;
+
+import com.duc.oauth2jwt.model.Role;
+
+// One row of users LEFT JOIN roles: a user with N roles appears on N consecutive rows, one with none on a single row
+public interface UserRoleRow {
+    Long getId();
+
+    String getEmail();
+
+    String getName();
+
+    String getImageUrl();
+
+    Role.RoleName getRoleName();
+}
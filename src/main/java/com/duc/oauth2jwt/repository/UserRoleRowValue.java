@@ -0,0 +1,14 @@
+package com.duc.oauth2jwt.repository;
+
+import com.duc.oauth2jwt.model.Role;
+import lombok.Value;
+
+// UserRoleRow built by a JPQL constructor expression, for queries that run outside Spring Data projections
+@Value
+public class UserRoleRowValue implements UserRoleRow {
+    Long id;
+    String email;
+    String name;
+    String imageUrl;
+    Role.RoleName roleName;
+}
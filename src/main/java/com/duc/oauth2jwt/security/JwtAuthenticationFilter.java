@@ -4,6 +4,8 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.duc.oauth2jwt.service.AccessTokenDenylist;
+import com.duc.oauth2jwt.service.TokenVersionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -23,6 +25,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
     private final CustomUserDetailsService customUserDetailsService;
+    private final UserDetailsCache userDetailsCache;
+    private final AccessTokenDenylist accessTokenDenylist;
+    private final TokenVersionService tokenVersionService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -30,10 +35,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
+            JwtVerificationResult verification = StringUtils.hasText(jwt) ? tokenProvider.verify(jwt) : null;
 
-                UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
+            if (verification != null && verification.isValid() && isStillIssued(verification.getClaims())) {
+                UserDetails userDetails = resolveUserDetails(verification.getClaims());
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -47,6 +52,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    // Both checks are answered from local memory unless the token is a possible denylist hit or the
+    // user's version is not cached yet
+    private boolean isStillIssued(JwtClaims claims) {
+        return !accessTokenDenylist.isRevoked(claims.getTokenId())
+                && tokenVersionService.isCurrent(claims.getSubject(), claims.getTokenVersion());
+    }
+
+    private UserDetails resolveUserDetails(JwtClaims claims) {
+        // Tokens issued before stateless mode was enabled carry no roles and still go through the database
+        if (tokenProvider.isStatelessAuthentication() && claims.getRoles() != null) {
+            return UserPrincipal.create(claims);
+        }
+        return userDetailsCache.get(claims.getSubject(), customUserDetailsService::loadUserByUsername);
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
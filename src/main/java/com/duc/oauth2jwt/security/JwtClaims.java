@@ -0,0 +1,19 @@
+package com.duc.oauth2jwt.security;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.List;
+
+@Value
+@Builder
+public class JwtClaims {
+    String tokenId;
+    String subject;
+    Instant issuedAt;
+    Instant expiration;
+    Long userId;
+    List<String> roles;
+    Long tokenVersion;
+}
@@ -0,0 +1,364 @@
+package com.duc.oauth2jwt.security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Asymmetric signing keys shared by all nodes through one Redis hash. A new key is published ahead of the
+// moment it starts signing, so every node and every JWKS consumer already knows it when the first token
+// carrying its kid shows up; old keys stay until the last token they signed has expired.
+// Private keys are stored AES-GCM encrypted with a key-encryption key that never leaves the configuration,
+// so read access to Redis is not enough to sign tokens; only the public keys are stored in plaintext.
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    static final String KEYS_KEY = "jwt:signing-keys";
+    static final String ROTATION_LOCK_KEY = "jwt:signing-keys:rotation-lock";
+    private static final String SEPARATOR = ";";
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final long STARTUP_BACKOFF_INITIAL_MS = 100;
+    private static final long STARTUP_BACKOFF_MAX_MS = 2000;
+
+    private final StringRedisTemplate redisTemplate;
+    private final SignatureAlgorithm signatureAlgorithm;
+    private final Duration rotationInterval;
+    private final Duration publishAhead;
+    private final Duration tokenLifetime;
+    private final SecretKey encryptionKey;
+    private final Duration startupWait;
+
+    private volatile KeySet keySet = KeySet.EMPTY;
+
+    public JwtKeyRing(StringRedisTemplate redisTemplate,
+                      @Value("${app.jwt.signature-algorithm:HS512}") SignatureAlgorithm signatureAlgorithm,
+                      @Value("${app.jwt.keys.rotation-interval:P7D}") Duration rotationInterval,
+                      @Value("${app.jwt.keys.publish-ahead:PT10M}") Duration publishAhead,
+                      @Value("${app.jwt.access-token-expiration}") long accessTokenExpirationMs,
+                      @Value("${app.jwt.keys.encryption-key:}") String encryptionKey,
+                      @Value("${app.jwt.keys.startup-wait:PT30S}") Duration startupWait) {
+        this.redisTemplate = redisTemplate;
+        this.signatureAlgorithm = signatureAlgorithm;
+        this.rotationInterval = rotationInterval;
+        this.publishAhead = publishAhead;
+        this.tokenLifetime = Duration.ofMillis(accessTokenExpirationMs);
+        this.encryptionKey = encryptionKey == null || encryptionKey.isBlank() ? null : encryptionKey(encryptionKey);
+        this.startupWait = startupWait;
+    }
+
+    public boolean isEnabled() {
+        return signatureAlgorithm == SignatureAlgorithm.RS256 || signatureAlgorithm == SignatureAlgorithm.ES256;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        if (encryptionKey == null) {
+            throw new IllegalStateException("app.jwt.keys.encryption-key must be set to sign tokens with "
+                    + signatureAlgorithm);
+        }
+        // Without keys no token can be issued, so a Redis failure here is allowed to stop the startup
+        synchronize(Instant.now());
+        awaitActiveKey();
+        log.info("Loaded {} JWT signing key(s) for {}", keySet.byKid().size(), signatureAlgorithm);
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.keys.refresh-interval-ms:60000}",
+            initialDelayString = "${app.jwt.keys.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            synchronize(Instant.now());
+        } catch (Exception ex) {
+            log.warn("Could not refresh JWT signing keys, keeping the {} loaded key(s)", keySet.byKid().size(), ex);
+        }
+    }
+
+    public SigningKey signingKey() {
+        SigningKey key = activeKey(Instant.now());
+        if (key == null) {
+            throw new IllegalStateException("No active JWT signing key");
+        }
+        return key;
+    }
+
+    public SigningKey verificationKey(String kid) {
+        return kid == null ? null : keySet.byKid().get(kid);
+    }
+
+    public Jwks jwks() {
+        return keySet.jwks();
+    }
+
+    synchronized void synchronize(Instant now) {
+        List<SigningKey> keys = load();
+        keys = prune(keys, now);
+
+        SigningKey newest = keys.isEmpty() ? null : keys.get(keys.size() - 1);
+        boolean due = newest == null || !now.isBefore(newest.activatesAt().plus(rotationInterval).minus(publishAhead));
+        if (due && acquireRotationLock()) {
+            // Re-read under the lock: another node may have rotated between our read and the lock
+            keys = load();
+            newest = keys.isEmpty() ? null : keys.get(keys.size() - 1);
+            if (newest == null || !now.isBefore(newest.activatesAt().plus(rotationInterval).minus(publishAhead))) {
+                // The very first key has nothing to wait for and signs immediately
+                SigningKey created = generate(newest == null ? now : now.plus(publishAhead));
+                redisTemplate.opsForHash().put(KEYS_KEY, created.kid(), encode(created));
+                keys = new ArrayList<>(keys);
+                keys.add(created);
+                log.info("Published JWT signing key {} active from {}", created.kid(), created.activatesAt());
+            }
+        }
+
+        if (!keys.equals(keySet.oldestFirst())) {
+            keySet = KeySet.of(keys);
+        }
+    }
+
+    // On a cold start of several nodes only the one holding the rotation lock creates the first key;
+    // the others reload with a backoff until it shows up, and give up the startup if it never does
+    private void awaitActiveKey() {
+        if (activeKey(Instant.now()) != null) {
+            return;
+        }
+        log.info("Waiting up to {} for another node to publish the first JWT signing key", startupWait);
+        long deadline = System.nanoTime() + startupWait.toNanos();
+        long backoffMs = STARTUP_BACKOFF_INITIAL_MS;
+        while (activeKey(Instant.now()) == null) {
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMs <= 0) {
+                throw new IllegalStateException("No JWT signing key was published within " + startupWait);
+            }
+            try {
+                Thread.sleep(Math.min(backoffMs, remainingMs));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a JWT signing key", ex);
+            }
+            backoffMs = Math.min(backoffMs * 2, STARTUP_BACKOFF_MAX_MS);
+            // Also takes over the rotation if the lock holder died before publishing
+            synchronize(Instant.now());
+        }
+    }
+
+    // Newest key whose activation time has passed; a freshly published key is only announced, not used
+    private SigningKey activeKey(Instant now) {
+        for (SigningKey key : keySet.newestFirst()) {
+            if (!key.activatesAt().isAfter(now)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    private List<SigningKey> load() {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(KEYS_KEY);
+        List<SigningKey> keys = new ArrayList<>(entries.size());
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            SigningKey current = keySet.byKid().get(String.valueOf(entry.getKey()));
+            // Keys never change once written, so already decoded ones are reused as is
+            keys.add(current != null ? current : decode(String.valueOf(entry.getKey()), String.valueOf(entry.getValue())));
+        }
+        keys.sort(Comparator.comparing(SigningKey::activatesAt).thenComparing(SigningKey::kid));
+        return keys;
+    }
+
+    // A key can go once its successor has been signing for longer than a token lives
+    private List<SigningKey> prune(List<SigningKey> keys, Instant now) {
+        List<SigningKey> kept = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            SigningKey successor = i + 1 < keys.size() ? keys.get(i + 1) : null;
+            if (successor != null && successor.activatesAt().plus(tokenLifetime).isBefore(now)) {
+                redisTemplate.opsForHash().delete(KEYS_KEY, keys.get(i).kid());
+                log.info("Retired JWT signing key {}", keys.get(i).kid());
+            } else {
+                kept.add(keys.get(i));
+            }
+        }
+        return kept;
+    }
+
+    private boolean acquireRotationLock() {
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(ROTATION_LOCK_KEY, UUID.randomUUID().toString(),
+                Duration.ofMinutes(1));
+        return Boolean.TRUE.equals(acquired);
+    }
+
+    private SigningKey generate(Instant activatesAt) {
+        KeyPair keyPair = Keys.keyPairFor(signatureAlgorithm);
+        return new SigningKey(UUID.randomUUID().toString(), signatureAlgorithm, keyPair.getPrivate(),
+                keyPair.getPublic(), activatesAt);
+    }
+
+    // <alg>;<activatesAt epoch millis>;<IV + encrypted PKCS#8 private key>;<X.509 public key>, base64 encoded
+    private String encode(SigningKey key) {
+        Base64.Encoder encoder = Base64.getEncoder();
+        return String.join(SEPARATOR,
+                key.algorithm().getValue(),
+                String.valueOf(key.activatesAt().toEpochMilli()),
+                encoder.encodeToString(encrypt(key.kid(), key.privateKey().getEncoded())),
+                encoder.encodeToString(key.publicKey().getEncoded()));
+    }
+
+    private SigningKey decode(String kid, String value) {
+        String[] parts = value.split(SEPARATOR);
+        try {
+            SignatureAlgorithm algorithm = SignatureAlgorithm.forName(parts[0]);
+            KeyFactory keyFactory = KeyFactory.getInstance(algorithm.getFamilyName().equals("ECDSA") ? "EC" : "RSA");
+            Base64.Decoder decoder = Base64.getDecoder();
+            PrivateKey privateKey = keyFactory.generatePrivate(
+                    new PKCS8EncodedKeySpec(decrypt(kid, decoder.decode(parts[2]))));
+            PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(decoder.decode(parts[3])));
+            return new SigningKey(kid, algorithm, privateKey, publicKey, Instant.ofEpochMilli(Long.parseLong(parts[1])));
+        } catch (GeneralSecurityException | RuntimeException ex) {
+            throw new IllegalStateException("Unreadable JWT signing key " + kid, ex);
+        }
+    }
+
+    // The kid is bound as associated data, so an encrypted key cannot be moved under another kid
+    private byte[] encrypt(String kid, byte[] plaintext) {
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            RANDOM.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            byte[] ciphertext = cipher.doFinal(plaintext);
+            byte[] result = Arrays.copyOf(iv, IV_LENGTH + ciphertext.length);
+            System.arraycopy(ciphertext, 0, result, IV_LENGTH, ciphertext.length);
+            return result;
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Could not encrypt JWT signing key " + kid, ex);
+        }
+    }
+
+    private byte[] decrypt(String kid, byte[] value) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_LENGTH_BITS, value, 0, IV_LENGTH));
+        cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+        return cipher.doFinal(value, IV_LENGTH, value.length - IV_LENGTH);
+    }
+
+    private static SecretKey encryptionKey(String base64) {
+        byte[] bytes = Base64.getDecoder().decode(base64.trim());
+        if (bytes.length != 16 && bytes.length != 24 && bytes.length != 32) {
+            throw new IllegalArgumentException("app.jwt.keys.encryption-key must be a base64 encoded 128, 192 or 256-bit AES key");
+        }
+        return new SecretKeySpec(bytes, "AES");
+    }
+
+    public record SigningKey(String kid, SignatureAlgorithm algorithm, PrivateKey privateKey, PublicKey publicKey,
+                             Instant activatesAt) {
+    }
+
+    // The JWKS document only changes when a key is published or retired, so it is rendered once per key set
+    public record Jwks(Map<String, Object> body, String etag) {
+    }
+
+    private record KeySet(List<SigningKey> oldestFirst, List<SigningKey> newestFirst, Map<String, SigningKey> byKid,
+                          Jwks jwks) {
+
+        static final KeySet EMPTY = of(Collections.emptyList());
+
+        static KeySet of(List<SigningKey> oldestFirst) {
+            List<SigningKey> newestFirst = new ArrayList<>(oldestFirst);
+            Collections.reverse(newestFirst);
+            Map<String, SigningKey> byKid = oldestFirst.stream()
+                    .collect(Collectors.toUnmodifiableMap(SigningKey::kid, Function.identity()));
+            return new KeySet(List.copyOf(oldestFirst), List.copyOf(newestFirst), byKid, render(oldestFirst));
+        }
+
+        private static Jwks render(List<SigningKey> keys) {
+            List<Map<String, Object>> jwkList = keys.stream().map(KeySet::toJwk).collect(Collectors.toList());
+            String kids = keys.stream().map(SigningKey::kid).collect(Collectors.joining(","));
+            return new Jwks(Map.of("keys", jwkList), "\"" + sha256(kids) + "\"");
+        }
+
+        private static Map<String, Object> toJwk(SigningKey key) {
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kid", key.kid());
+            jwk.put("use", "sig");
+            jwk.put("alg", key.algorithm().getValue());
+            if (key.publicKey() instanceof RSAPublicKey rsa) {
+                jwk.put("kty", "RSA");
+                jwk.put("n", base64Url(rsa.getModulus()));
+                jwk.put("e", base64Url(rsa.getPublicExponent()));
+            } else if (key.publicKey() instanceof ECPublicKey ec) {
+                jwk.put("kty", "EC");
+                jwk.put("crv", "P-256");
+                jwk.put("x", base64Url(ec.getW().getAffineX(), 32));
+                jwk.put("y", base64Url(ec.getW().getAffineY(), 32));
+            }
+            return jwk;
+        }
+
+        private static String base64Url(BigInteger value) {
+            byte[] bytes = value.toByteArray();
+            // Drop the sign byte BigInteger adds in front of values with the high bit set
+            int offset = bytes.length > 1 && bytes[0] == 0 ? 1 : 0;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOfRange(bytes, offset, bytes.length));
+        }
+
+        private static String base64Url(BigInteger value, int length) {
+            byte[] bytes = value.toByteArray();
+            byte[] padded = new byte[length];
+            int copy = Math.min(bytes.length, length);
+            System.arraycopy(bytes, bytes.length - copy, padded, length - copy, copy);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+        }
+
+        private static String sha256(String value) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+                return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
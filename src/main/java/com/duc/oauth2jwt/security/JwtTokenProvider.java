@@ -1,64 +1,146 @@
 package com.duc.oauth2jwt.security;
 
+import com.duc.oauth2jwt.model.User;
+import com.duc.oauth2jwt.service.TokenVersionService;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Data
 @Component
 public class JwtTokenProvider {
 
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
     @Value("${app.jwt.access-token-expiration}")
     private long jwtExpirationInMs;
 
-    private Key getSigningKey() {
+    @Value("${app.jwt.stateless-authentication:false}")
+    private boolean statelessAuthentication;
+
+    // HMAC variants sign with the shared secret, which must be at least as long as the algorithm's digest;
+    // RS256/ES256 sign with the rotating key pairs of the key ring and put their kid in the header
+    @Value("${app.jwt.signature-algorithm:HS512}")
+    private SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.HS512;
+
+    @Autowired(required = false)
+    @Getter(AccessLevel.NONE)
+    private JwtKeyRing keyRing;
+
+    // Stamps each token with its user's current version so "logout everywhere" can outdate all of them
+    @Autowired(required = false)
+    @Getter(AccessLevel.NONE)
+    private TokenVersionService tokenVersionService;
+
+    // Decoded key and parser are immutable and thread-safe, so they are built once and shared by all requests
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile SigningKeyHolder signingKeyHolder;
+
+    @PostConstruct
+    public void init() {
+        if (!signatureAlgorithm.isHmac()) {
+            if (keyRing == null || !keyRing.isEnabled()) {
+                throw new IllegalStateException("No key ring available for " + signatureAlgorithm);
+            }
+            // The kid is looked up in the ring's pre-built map, so verification never goes to Redis
+            JwtParser parser = Jwts.parserBuilder()
+                    .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                        @Override
+                        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                            JwtKeyRing.SigningKey key = keyRing.verificationKey(header.getKeyId());
+                            if (key == null || !key.algorithm().getValue().equals(header.getAlgorithm())) {
+                                throw new SignatureException("Unknown signing key");
+                            }
+                            return key.publicKey();
+                        }
+                    })
+                    .build();
+            this.signingKeyHolder = new SigningKeyHolder(null, parser);
+            return;
+        }
+
         byte[] keyBytes = Base64.getDecoder().decode(jwtSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
+        Key key = Keys.hmacShaKeyFor(keyBytes);
+        JwtParser parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+        this.signingKeyHolder = new SigningKeyHolder(key, parser);
     }
 
     public String generateToken(Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        return generateToken((UserDetails) authentication.getPrincipal());
+    }
+
+    public String generateToken(UserDetails userDetails) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
-        return Jwts.builder()
+        // The id lets a single token be revoked before it expires
+        JwtBuilder builder = Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
-                .compact();
+                .setExpiration(expiryDate);
+
+        if (tokenVersionService != null) {
+            builder.claim(CLAIM_TOKEN_VERSION, tokenVersionService.versionForNewToken(userDetails.getUsername()));
+        }
+
+        // In stateless mode the filter rebuilds the principal from these claims instead of loading the user
+        if (statelessAuthentication) {
+            builder.claim(CLAIM_USER_ID, resolveUserId(userDetails))
+                    .claim(CLAIM_ROLES, toRoleNames(userDetails.getAuthorities()));
+        }
+
+        return sign(builder);
     }
 
     public String generateTokenFromUsername(String username) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
                 .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
-                .compact();
+                .setExpiration(expiryDate);
+
+        if (tokenVersionService != null) {
+            builder.claim(CLAIM_TOKEN_VERSION, tokenVersionService.versionForNewToken(username));
+        }
+
+        return sign(builder);
     }
 
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        Claims claims = signingKeyHolder.parser()
                 .parseClaimsJws(token)
                 .getBody();
 
@@ -66,23 +148,80 @@ public class JwtTokenProvider {
     }
 
     public boolean validateToken(String authToken) {
+        return verify(authToken).isValid();
+    }
+
+    // Parses and checks the signature once, so callers get both the verdict and the claims from a single pass
+    public JwtVerificationResult verify(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
+            Claims claims = signingKeyHolder.parser()
+                    .parseClaimsJws(token)
+                    .getBody();
+            return JwtVerificationResult.success(toJwtClaims(claims));
         } catch (SignatureException ex) {
             log.error("Invalid JWT signature");
+            return JwtVerificationResult.failure(JwtVerificationResult.Failure.INVALID_SIGNATURE);
         } catch (MalformedJwtException ex) {
             log.error("Invalid JWT token");
+            return JwtVerificationResult.failure(JwtVerificationResult.Failure.MALFORMED);
         } catch (ExpiredJwtException ex) {
             log.error("Expired JWT token");
+            return JwtVerificationResult.failure(JwtVerificationResult.Failure.EXPIRED);
         } catch (UnsupportedJwtException ex) {
             log.error("Unsupported JWT token");
+            return JwtVerificationResult.failure(JwtVerificationResult.Failure.UNSUPPORTED);
         } catch (IllegalArgumentException ex) {
             log.error("JWT claims string is empty");
+            return JwtVerificationResult.failure(JwtVerificationResult.Failure.EMPTY);
+        } catch (JwtException ex) {
+            log.error("Invalid JWT: {}", ex.getMessage());
+            return JwtVerificationResult.failure(JwtVerificationResult.Failure.INVALID);
+        }
+    }
+
+    private String sign(JwtBuilder builder) {
+        if (signingKeyHolder.key() != null) {
+            return builder.signWith(signingKeyHolder.key(), signatureAlgorithm).compact();
+        }
+        JwtKeyRing.SigningKey key = keyRing.signingKey();
+        return builder
+                .setHeaderParam(JwsHeader.KEY_ID, key.kid())
+                .signWith(key.privateKey(), key.algorithm())
+                .compact();
+    }
+
+    private JwtClaims toJwtClaims(Claims claims) {
+        Object userId = claims.get(CLAIM_USER_ID);
+        Object roles = claims.get(CLAIM_ROLES);
+        Object tokenVersion = claims.get(CLAIM_TOKEN_VERSION);
+
+        return JwtClaims.builder()
+                .tokenId(claims.getId())
+                .subject(claims.getSubject())
+                .issuedAt(claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null)
+                .expiration(claims.getExpiration() != null ? claims.getExpiration().toInstant() : null)
+                .userId(userId instanceof Number number ? number.longValue() : null)
+                .roles(roles instanceof Collection<?> names ? names.stream().map(String::valueOf).toList() : null)
+                .tokenVersion(tokenVersion instanceof Number number ? number.longValue() : null)
+                .build();
+    }
+
+    private Long resolveUserId(UserDetails userDetails) {
+        if (userDetails instanceof UserPrincipal userPrincipal) {
+            return userPrincipal.getId();
+        }
+        if (userDetails instanceof User user) {
+            return user.getId();
         }
-        return false;
+        return null;
+    }
+
+    private List<String> toRoleNames(Collection<? extends GrantedAuthority> authorities) {
+        return authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
+    }
+
+    private record SigningKeyHolder(Key key, JwtParser parser) {
     }
 }
@@ -0,0 +1,34 @@
+package com.duc.oauth2jwt.security;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class JwtVerificationResult {
+
+    private final JwtClaims claims;
+    private final Failure failure;
+
+    public static JwtVerificationResult success(JwtClaims claims) {
+        return new JwtVerificationResult(claims, null);
+    }
+
+    public static JwtVerificationResult failure(Failure failure) {
+        return new JwtVerificationResult(null, failure);
+    }
+
+    public boolean isValid() {
+        return failure == null;
+    }
+
+    public enum Failure {
+        INVALID_SIGNATURE,
+        MALFORMED,
+        EXPIRED,
+        UNSUPPORTED,
+        EMPTY,
+        INVALID
+    }
+}
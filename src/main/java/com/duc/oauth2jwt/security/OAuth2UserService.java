@@ -3,8 +3,9 @@ package com.duc.oauth2jwt.security;
 import com.duc.oauth2jwt.exception.OAuth2AuthenticationProcessingException;
 import com.duc.oauth2jwt.model.Role;
 import com.duc.oauth2jwt.model.User;
-import com.duc.oauth2jwt.repository.RoleRepository;
 import com.duc.oauth2jwt.repository.UserRepository;
+import com.duc.oauth2jwt.service.CacheInvalidationService;
+import com.duc.oauth2jwt.service.RoleRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.core.AuthenticationException;
@@ -24,7 +25,8 @@ import java.util.Optional;
 public class OAuth2UserService extends DefaultOAuth2UserService {
 
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
+    private final CacheInvalidationService cacheInvalidationService;
 
     @Override
     public OAuth2User loadUser(OAuth2UserRequest oAuth2UserRequest) throws OAuth2AuthenticationException {
@@ -76,8 +78,7 @@ public class OAuth2UserService extends DefaultOAuth2UserService {
         user.setEmailVerified(true);
 
         // Add ROLE_USER by default
-        Role userRole = roleRepository.findByName(Role.RoleName.ROLE_USER)
-                .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
+        Role userRole = roleRegistry.get(Role.RoleName.ROLE_USER);
         user.setRoles(Collections.singleton(userRole));
 
         return userRepository.save(user);
@@ -86,7 +87,10 @@ public class OAuth2UserService extends DefaultOAuth2UserService {
     private User updateExistingUser(User existingUser, GoogleOAuth2UserInfo userInfo) {
         existingUser.setName(userInfo.getName());
         existingUser.setImageUrl(userInfo.getImageUrl());
-        return userRepository.save(existingUser);
+
+        User savedUser = userRepository.save(existingUser);
+        cacheInvalidationService.invalidate(UserDetailsCache.CACHE_NAME, existingUser.getEmail());
+        return savedUser;
     }
 
     private static class GoogleOAuth2UserInfo {
@@ -0,0 +1,85 @@
+package com.duc.oauth2jwt.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+// Opt-in: measures how long one password verification takes on this host for each candidate setting,
+// so the encoder cost can be chosen against a login latency budget instead of by default
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.security.password-encoder.benchmark.enabled", havingValue = "true")
+public class PasswordEncoderBenchmarkRunner implements ApplicationRunner {
+
+    private static final String SAMPLE_PASSWORD = "correct-horse-battery-staple";
+
+    private final PasswordEncoderFactory passwordEncoderFactory;
+
+    @Value("${app.security.password-encoder.benchmark.samples:10}")
+    private int samples;
+
+    @Value("${app.security.password-encoder.benchmark.latency-budget:250ms}")
+    private Duration latencyBudget;
+
+    @Value("${app.security.password-encoder.benchmark.bcrypt-strengths:10,11,12,13}")
+    private List<Integer> bcryptStrengths;
+
+    @Value("${app.security.password-encoder.benchmark.argon2-memory-kib:19456,47104,65536}")
+    private List<Integer> argon2MemoryKib;
+
+    @Value("${app.security.password-encoder.benchmark.pbkdf2-iterations:310000,600000}")
+    private List<Integer> pbkdf2Iterations;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Password encoder benchmark: {} samples per setting, latency budget {} ms, {} CPUs",
+                samples, latencyBudget.toMillis(), Runtime.getRuntime().availableProcessors());
+
+        for (int strength : bcryptStrengths) {
+            report("bcrypt strength=" + strength, passwordEncoderFactory.bcrypt(strength));
+        }
+        for (int memoryKib : argon2MemoryKib) {
+            report("argon2 memory=" + memoryKib + "KiB iterations=" + passwordEncoderFactory.getArgon2Iterations(),
+                    passwordEncoderFactory.argon2(memoryKib, passwordEncoderFactory.getArgon2Iterations()));
+        }
+        for (int iterations : pbkdf2Iterations) {
+            report("pbkdf2 iterations=" + iterations, passwordEncoderFactory.pbkdf2(iterations));
+        }
+    }
+
+    private void report(String setting, PasswordEncoder encoder) {
+        String hash = encoder.encode(SAMPLE_PASSWORD);
+        // Warm-up so JIT compilation does not skew the first samples
+        encoder.matches(SAMPLE_PASSWORD, hash);
+
+        long[] latenciesNanos = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            encoder.matches(SAMPLE_PASSWORD, hash);
+            latenciesNanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latenciesNanos);
+
+        double p50 = percentileMillis(latenciesNanos, 0.50);
+        double p99 = percentileMillis(latenciesNanos, 0.99);
+        log.info("{}: p50={} ms p99={} ms max={} ms -> {}", setting,
+                String.format("%.1f", p50), String.format("%.1f", p99),
+                String.format("%.1f", latenciesNanos[latenciesNanos.length - 1] / 1_000_000.0),
+                p99 <= latencyBudget.toMillis() ? "within budget" : "over budget");
+    }
+
+    private double percentileMillis(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,83 @@
+package com.duc.oauth2jwt.security;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Builds the {id}-prefixed encoder from the configured target parameters. Hashes written by an older
+// algorithm or a weaker setting still verify, and are reported by upgradeEncoding so they get rehashed on login.
+@Getter
+@Component
+public class PasswordEncoderFactory {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+    public static final String PBKDF2 = "pbkdf2";
+
+    private final String encodingId;
+    private final int bcryptStrength;
+    private final int argon2SaltLength;
+    private final int argon2HashLength;
+    private final int argon2Parallelism;
+    private final int argon2MemoryKib;
+    private final int argon2Iterations;
+    private final int pbkdf2SaltLength;
+    private final int pbkdf2Iterations;
+
+    public PasswordEncoderFactory(@Value("${app.security.password-encoder.id:bcrypt}") String encodingId,
+                                  @Value("${app.security.password-encoder.bcrypt.strength:10}") int bcryptStrength,
+                                  @Value("${app.security.password-encoder.argon2.salt-length:16}") int argon2SaltLength,
+                                  @Value("${app.security.password-encoder.argon2.hash-length:32}") int argon2HashLength,
+                                  @Value("${app.security.password-encoder.argon2.parallelism:1}") int argon2Parallelism,
+                                  @Value("${app.security.password-encoder.argon2.memory-kib:19456}") int argon2MemoryKib,
+                                  @Value("${app.security.password-encoder.argon2.iterations:2}") int argon2Iterations,
+                                  @Value("${app.security.password-encoder.pbkdf2.salt-length:16}") int pbkdf2SaltLength,
+                                  @Value("${app.security.password-encoder.pbkdf2.iterations:600000}") int pbkdf2Iterations) {
+        this.encodingId = encodingId;
+        this.bcryptStrength = bcryptStrength;
+        this.argon2SaltLength = argon2SaltLength;
+        this.argon2HashLength = argon2HashLength;
+        this.argon2Parallelism = argon2Parallelism;
+        this.argon2MemoryKib = argon2MemoryKib;
+        this.argon2Iterations = argon2Iterations;
+        this.pbkdf2SaltLength = pbkdf2SaltLength;
+        this.pbkdf2Iterations = pbkdf2Iterations;
+    }
+
+    public PasswordEncoder create() {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, bcrypt(bcryptStrength));
+        encoders.put(ARGON2, argon2(argon2MemoryKib, argon2Iterations));
+        encoders.put(PBKDF2, pbkdf2(pbkdf2Iterations));
+
+        if (!encoders.containsKey(encodingId)) {
+            throw new IllegalStateException("Unsupported password encoder id: " + encodingId);
+        }
+
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(encodingId, encoders);
+        // Passwords stored before the {id} prefix was introduced are plain BCrypt hashes
+        passwordEncoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return passwordEncoder;
+    }
+
+    public PasswordEncoder bcrypt(int strength) {
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    public PasswordEncoder argon2(int memoryKib, int iterations) {
+        return new Argon2PasswordEncoder(argon2SaltLength, argon2HashLength, argon2Parallelism, memoryKib, iterations);
+    }
+
+    public PasswordEncoder pbkdf2(int iterations) {
+        return new Pbkdf2PasswordEncoder("", pbkdf2SaltLength, iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+    }
+}
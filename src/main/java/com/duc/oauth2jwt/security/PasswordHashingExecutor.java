@@ -0,0 +1,147 @@
+package com.duc.oauth2jwt.security;
+
+import com.duc.oauth2jwt.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Runs password hashing on its own bounded pool so a login burst cannot take every request thread.
+// Callers are rejected before they block when the queue is full or the estimated wait for a worker exceeds
+// max-wait, so a burst turns into fast 503s instead of request threads parked behind BCrypt.
+@Slf4j
+@Component
+public class PasswordHashingExecutor {
+
+    // Weight of the latest hash in the moving average used to estimate queueing time
+    private static final double HASH_DURATION_WEIGHT = 0.2;
+
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+    private final Duration maxWait;
+    private final long retryAfterSeconds;
+
+    private final Timer waitTimer;
+    private final Timer hashTimer;
+    private final Counter rejectedCounter;
+
+    private volatile long averageHashNanos;
+
+    public PasswordHashingExecutor(@Value("${app.security.password-hashing.pool-size:0}") int poolSize,
+                                   @Value("${app.security.password-hashing.queue-capacity:100}") int queueCapacity,
+                                   @Value("${app.security.password-hashing.max-wait:500ms}") Duration maxWait,
+                                   @Value("${app.security.password-hashing.retry-after:1s}") Duration retryAfter,
+                                   MeterRegistry meterRegistry) {
+        this.threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxWait = maxWait;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+
+        Gauge.builder("password_hashing.queue.size", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("password_hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("password_hashing.wait")
+                .description("Time a hashing task spent queued before a worker picked it up")
+                .register(meterRegistry);
+        this.hashTimer = Timer.builder("password_hashing.duration")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("password_hashing.rejected")
+                .register(meterRegistry);
+    }
+
+    public <T> T execute(Supplier<T> task) {
+        if (estimatedWaitNanos() > maxWait.toNanos()) {
+            rejectedCounter.increment();
+            throw overloaded();
+        }
+
+        // Whoever sets claimed first owns the task: the worker when it starts the hash, or the caller when it gives
+        // up waiting for a worker, in which case the worker skips the hash when it eventually dequeues the task
+        AtomicBoolean claimed = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(1);
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                started.countDown();
+                long startedAt = System.nanoTime();
+                waitTimer.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return hashTimer.record(task);
+                } finally {
+                    recordHashDuration(System.nanoTime() - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            rejectedCounter.increment();
+            throw overloaded();
+        }
+
+        try {
+            // Backstop for a wrong estimate: only the wait for a worker is bounded, a started hash is waited for
+            if (!started.await(maxWait.toMillis(), TimeUnit.MILLISECONDS) && claimed.compareAndSet(false, true)) {
+                future.cancel(false);
+                rejectedCounter.increment();
+                throw overloaded();
+            }
+            return future.get();
+        } catch (InterruptedException ex) {
+            // A hash that already started runs to completion on its worker and its result is dropped. The caller
+            // is being shut down rather than turned away, so this is neither a 503 nor counted as a rejection
+            claimed.set(true);
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Interrupted while waiting for password hashing", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    // Queued tasks drain in waves of one per worker; no estimate until a hash has been measured
+    private long estimatedWaitNanos() {
+        if (executor.getActiveCount() < threads) {
+            return 0;
+        }
+        return (executor.getQueue().size() + 1L) * averageHashNanos / threads;
+    }
+
+    private void recordHashDuration(long nanos) {
+        long average = averageHashNanos;
+        averageHashNanos = average == 0 ? nanos : (long) (average + HASH_DURATION_WEIGHT * (nanos - average));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private ServiceOverloadedException overloaded() {
+        return new ServiceOverloadedException("Too many authentication requests, please retry later", retryAfterSeconds);
+    }
+}
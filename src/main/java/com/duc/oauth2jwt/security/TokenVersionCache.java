@@ -0,0 +1,58 @@
+package com.duc.oauth2jwt.security;
+
+import com.duc.oauth2jwt.service.InvalidatableCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+// Current token version per user email. Entries are dropped by push invalidation whenever a version is bumped;
+// the TTL only bounds how long a lost invalidation message can go unnoticed.
+@Component
+public class TokenVersionCache implements InvalidatableCache {
+
+    public static final String CACHE_NAME = "token_versions";
+
+    private final Cache<String, Long> cache;
+
+    public TokenVersionCache(@Value("${app.security.token-version-cache.max-size:10000}") long maxSize,
+                             @Value("${app.security.token-version-cache.ttl:600s}") Duration ttl,
+                             MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public long get(String email, Function<String, Long> loader) {
+        return cache.get(email, loader);
+    }
+
+    public Long getIfPresent(String email) {
+        return cache.getIfPresent(email);
+    }
+
+    @Override
+    public String getCacheName() {
+        return CACHE_NAME;
+    }
+
+    @Override
+    public void invalidate(String email) {
+        if (email != null) {
+            cache.invalidate(email);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
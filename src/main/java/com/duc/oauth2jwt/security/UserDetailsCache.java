@@ -0,0 +1,83 @@
+package com.duc.oauth2jwt.security;
+
+import com.duc.oauth2jwt.model.User;
+import com.duc.oauth2jwt.service.InvalidatableCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+@Slf4j
+@Component
+public class UserDetailsCache implements InvalidatableCache {
+
+    public static final String CACHE_NAME = "user_details";
+
+    private final boolean enabled;
+    private final Cache<String, UserDetails> cache;
+
+    public UserDetailsCache(@Value("${app.security.user-cache.enabled:true}") boolean enabled,
+                            @Value("${app.security.user-cache.max-size:10000}") long maxSize,
+                            @Value("${app.security.user-cache.ttl:300s}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public UserDetails get(String email, Function<String, UserDetails> loader) {
+        if (!enabled) {
+            return loader.apply(email);
+        }
+        return cache.get(email, key -> toCacheablePrincipal(loader.apply(key)));
+    }
+
+    @Override
+    public String getCacheName() {
+        return CACHE_NAME;
+    }
+
+    @Override
+    public void invalidate(String email) {
+        if (email != null) {
+            cache.invalidate(email);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // Cached entries are shared across requests, so keep an immutable copy without the password hash
+    private UserDetails toCacheablePrincipal(UserDetails userDetails) {
+        Long id = userDetails instanceof UserPrincipal principal ? principal.getId()
+                : userDetails instanceof User user ? user.getId() : null;
+
+        return new UserPrincipal(
+                id,
+                userDetails.getUsername(),
+                null,
+                List.copyOf(userDetails.getAuthorities()),
+                Collections.emptyMap()
+        );
+    }
+}
@@ -37,6 +37,20 @@ public class UserPrincipal implements OAuth2User, UserDetails {
         );
     }
 
+    public static UserPrincipal create(JwtClaims claims) {
+        List<GrantedAuthority> authorities = claims.getRoles().stream()
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+
+        return new UserPrincipal(
+                claims.getUserId(),
+                claims.getSubject(),
+                null,
+                authorities,
+                Collections.emptyMap()
+        );
+    }
+
     public static UserPrincipal create(User user, Map<String, Object> attributes) {
         UserPrincipal userPrincipal = UserPrincipal.create(user);
         return new UserPrincipal(
@@ -0,0 +1,175 @@
+package com.duc.oauth2jwt.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+// Revoked access token ids live in Redis until the token would have expired anyway. Every node keeps a
+// Bloom filter of them, fed by the revocation channel, so a token that was never revoked is accepted
+// without a Redis call; only filter hits are confirmed against Redis.
+@Slf4j
+@Service
+public class AccessTokenDenylist implements MessageListener, SubscriptionListener {
+
+    private static final String KEY_PREFIX = "access_token:revoked:";
+    private static final String INDEX_KEY = "access_token:revoked";
+
+    private static final RedisScript<Long> REVOKE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/access_token_revoke.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final long expectedRevocations;
+    private final double falsePositiveRate;
+
+    private final Counter filteredLookups;
+    private final Counter revokedLookups;
+    private final Counter falsePositiveLookups;
+
+    private volatile BloomFilter filter;
+    // Also receives revocations while a rebuild is reading Redis, so none fall between the two filters
+    private volatile BloomFilter rebuilding;
+
+    public AccessTokenDenylist(StringRedisTemplate redisTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.jwt.revocation.channel:access-token-revocations}") String channel,
+                               @Value("${app.jwt.revocation.expected-revocations:100000}") long expectedRevocations,
+                               @Value("${app.jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filteredLookups = Counter.builder("access_token_denylist.lookups")
+                .tag("result", "filtered")
+                .register(meterRegistry);
+        this.revokedLookups = Counter.builder("access_token_denylist.lookups")
+                .tag("result", "revoked")
+                .register(meterRegistry);
+        this.falsePositiveLookups = Counter.builder("access_token_denylist.lookups")
+                .tag("result", "false_positive")
+                .register(meterRegistry);
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            rebuild();
+        } catch (Exception ex) {
+            log.warn("Could not load the access token denylist, checking Redis until it is loaded", ex);
+        }
+    }
+
+    public void revoke(String tokenId, Instant expiration) {
+        if (tokenId == null || expiration == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long remainingMs = expiration.toEpochMilli() - now;
+        if (remainingMs <= 0) {
+            return;
+        }
+
+        addLocally(tokenId);
+        redisTemplate.execute(REVOKE_SCRIPT, List.of(KEY_PREFIX + tokenId, INDEX_KEY),
+                tokenId, String.valueOf(remainingMs), String.valueOf(expiration.toEpochMilli()),
+                String.valueOf(now), channel);
+    }
+
+    public boolean isRevoked(String tokenId) {
+        // Tokens issued before ids were added cannot be revoked individually
+        if (tokenId == null) {
+            return false;
+        }
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(tokenId)) {
+            filteredLookups.increment();
+            return false;
+        }
+
+        try {
+            boolean revoked = Boolean.TRUE.equals(redisTemplate.hasKey(KEY_PREFIX + tokenId));
+            (revoked ? revokedLookups : falsePositiveLookups).increment();
+            return revoked;
+        } catch (Exception ex) {
+            // A filter hit that cannot be confirmed is treated as revoked. Before the filter was ever loaded
+            // that would reject every request while Redis is down, so those are let through instead.
+            log.error("Could not check access token revocation", ex);
+            return current != null;
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        addLocally(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+        // Revocations published while the connection was down never arrived; a Bloom filter cannot be
+        // cleared without forgetting live revocations, so it is rebuilt from Redis instead
+        try {
+            rebuild();
+        } catch (Exception ex) {
+            log.warn("Could not rebuild the access token denylist after subscribing", ex);
+        }
+    }
+
+    // Bloom filters cannot drop entries, so expired revocations are shed by building a fresh filter
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.rebuild-interval-ms:600000}",
+            initialDelayString = "${app.jwt.revocation.rebuild-interval-ms:600000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception ex) {
+            log.warn("Access token denylist rebuild failed, will retry on next run", ex);
+        }
+    }
+
+    synchronized void rebuild() {
+        BloomFilter next = new BloomFilter(expectedRevocations, falsePositiveRate);
+        rebuilding = next;
+        try {
+            Set<String> tokenIds = redisTemplate.opsForZSet()
+                    .rangeByScore(INDEX_KEY, System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+            if (tokenIds != null) {
+                tokenIds.forEach(next::put);
+            }
+            filter = next;
+            log.debug("Rebuilt access token denylist filter with {} entries", tokenIds == null ? 0 : tokenIds.size());
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    // A running rebuild's filter is written before the current one: when no rebuild is running, the next one
+    // either reads this id from Redis or has already swapped in its filter by the time of the second put
+    private void addLocally(String tokenId) {
+        BloomFilter pending = rebuilding;
+        if (pending != null) {
+            pending.put(tokenId);
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(tokenId);
+        }
+    }
+}
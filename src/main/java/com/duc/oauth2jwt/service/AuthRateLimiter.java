@@ -0,0 +1,198 @@
+package com.duc.oauth2jwt.service;
+
+import com.duc.oauth2jwt.exception.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// GCRA limits on the unauthenticated auth endpoints, keyed by client IP and by account email. The shared
+// state lives in Redis and all keys of a request are checked and charged by one script call. Each node also
+// remembers what Redis let through from it, so a flood coming through one node is turned away locally once
+// that alone exhausts a limit, which the global state would reject as well.
+// The client IP is request.getRemoteAddr(): behind a load balancer Tomcat resolves it from X-Forwarded-For, trusting
+// the header only from the proxies in server.tomcat.remoteip.internal-proxies.
+@Slf4j
+@Service
+public class AuthRateLimiter {
+
+    public enum Endpoint {
+        LOGIN, REGISTER, REFRESH;
+
+        String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final String KEY_PREFIX = "rate_limit:";
+
+    private static final RedisScript<Long> GCRA_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/rate_limit_gcra.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Map<Endpoint, Rule> perIp = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Rule> perEmail = new EnumMap<>(Endpoint.class);
+    // Theoretical arrival time per key, counting only requests Redis allowed through this node
+    private final Cache<String, AtomicLong> localTats;
+
+    public AuthRateLimiter(StringRedisTemplate redisTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${app.rate-limit.login.per-ip:30/1m}") String loginPerIp,
+                           @Value("${app.rate-limit.login.per-email:10/1m}") String loginPerEmail,
+                           @Value("${app.rate-limit.register.per-ip:10/1m}") String registerPerIp,
+                           @Value("${app.rate-limit.register.per-email:3/1m}") String registerPerEmail,
+                           @Value("${app.rate-limit.refresh.per-ip:60/1m}") String refreshPerIp,
+                           @Value("${app.rate-limit.local-max-keys:100000}") long localMaxKeys) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        putRule(perIp, Endpoint.LOGIN, loginPerIp);
+        putRule(perEmail, Endpoint.LOGIN, loginPerEmail);
+        putRule(perIp, Endpoint.REGISTER, registerPerIp);
+        putRule(perEmail, Endpoint.REGISTER, registerPerEmail);
+        putRule(perIp, Endpoint.REFRESH, refreshPerIp);
+
+        // A key untouched for a whole period has drained back to an empty bucket
+        long longestPeriodMs = Stream.concat(perIp.values().stream(), perEmail.values().stream())
+                .mapToLong(Rule::toleranceMs)
+                .max()
+                .orElse(1);
+        this.localTats = Caffeine.newBuilder()
+                .maximumSize(localMaxKeys)
+                .expireAfterAccess(Duration.ofMillis(longestPeriodMs))
+                .build();
+    }
+
+    public void check(Endpoint endpoint, String clientIp, String email) {
+        if (!enabled) {
+            return;
+        }
+        List<Limit> limits = limitsFor(endpoint, clientIp, email);
+        if (limits.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+
+        long localWait = 0;
+        for (Limit limit : limits) {
+            localWait = Math.max(localWait, localWaitMs(limit, now));
+        }
+        if (localWait > 0) {
+            throw reject(endpoint, "local", localWait);
+        }
+
+        List<String> keys = new ArrayList<>(limits.size());
+        String[] args = new String[1 + 2 * limits.size()];
+        args[0] = String.valueOf(now);
+        for (int i = 0; i < limits.size(); i++) {
+            Limit limit = limits.get(i);
+            keys.add(limit.key());
+            args[1 + 2 * i] = String.valueOf(limit.rule().emissionIntervalMs());
+            args[2 + 2 * i] = String.valueOf(limit.rule().toleranceMs());
+        }
+
+        Long wait;
+        try {
+            wait = redisTemplate.execute(GCRA_SCRIPT, keys, (Object[]) args);
+        } catch (Exception ex) {
+            // Fail open: an unavailable Redis should not lock everyone out; the local limits still apply
+            log.warn("Rate limit check for {} failed, allowing the request", endpoint.key(), ex);
+            wait = 0L;
+        }
+        if (wait != null && wait > 0) {
+            throw reject(endpoint, "redis", wait);
+        }
+
+        for (Limit limit : limits) {
+            long interval = limit.rule().emissionIntervalMs();
+            localTats.get(limit.key(), key -> new AtomicLong(now))
+                    .accumulateAndGet(now, (tat, t) -> Math.max(tat, t) + interval);
+        }
+    }
+
+    private long localWaitMs(Limit limit, long now) {
+        AtomicLong tat = localTats.getIfPresent(limit.key());
+        if (tat == null) {
+            return 0;
+        }
+        long newTat = Math.max(tat.get(), now) + limit.rule().emissionIntervalMs();
+        return newTat - now - limit.rule().toleranceMs();
+    }
+
+    private List<Limit> limitsFor(Endpoint endpoint, String clientIp, String email) {
+        List<Limit> limits = new ArrayList<>(2);
+        Rule ipRule = perIp.get(endpoint);
+        if (ipRule != null && clientIp != null && !clientIp.isBlank()) {
+            limits.add(new Limit(KEY_PREFIX + endpoint.key() + ":ip:" + clientIp, ipRule));
+        }
+        Rule emailRule = perEmail.get(endpoint);
+        if (emailRule != null && email != null && !email.isBlank()) {
+            limits.add(new Limit(KEY_PREFIX + endpoint.key() + ":email:" + email.trim().toLowerCase(Locale.ROOT), emailRule));
+        }
+        return limits;
+    }
+
+    private TooManyRequestsException reject(Endpoint endpoint, String source, long waitMs) {
+        Counter.builder("auth_rate_limit.rejected")
+                .tag("endpoint", endpoint.key())
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+        long retryAfterSeconds = Math.max(1, (waitMs + 999) / 1000);
+        return new TooManyRequestsException("Too many requests, try again later", retryAfterSeconds);
+    }
+
+    private static void putRule(Map<Endpoint, Rule> rules, Endpoint endpoint, String value) {
+        Rule rule = Rule.parse(value);
+        if (rule != null) {
+            rules.put(endpoint, rule);
+        }
+    }
+
+    private record Limit(String key, Rule rule) {
+    }
+
+    // "<limit>/<period>", e.g. "10/1m": bursts of up to <limit> requests, refilled evenly over <period>.
+    // A blank value turns the rule off.
+    record Rule(long emissionIntervalMs, long limit) {
+
+        static Rule parse(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            int slash = value.indexOf('/');
+            if (slash < 0) {
+                throw new IllegalArgumentException("Rate limit must look like <limit>/<period>: " + value);
+            }
+            long limit = Long.parseLong(value.substring(0, slash).trim());
+            Duration period = DurationStyle.detectAndParse(value.substring(slash + 1).trim());
+            if (limit <= 0 || period.isNegative() || period.isZero()) {
+                throw new IllegalArgumentException("Rate limit needs a positive limit and period: " + value);
+            }
+            return new Rule(Math.max(1, period.toMillis() / limit), limit);
+        }
+
+        long toleranceMs() {
+            return emissionIntervalMs * limit;
+        }
+    }
+}
@@ -8,11 +8,12 @@ import com.duc.oauth2jwt.exception.AuthenticationException;
 import com.duc.oauth2jwt.model.RefreshToken;
 import com.duc.oauth2jwt.model.Role;
 import com.duc.oauth2jwt.model.User;
-import com.duc.oauth2jwt.repository.RoleRepository;
 import com.duc.oauth2jwt.repository.UserRepository;
 import com.duc.oauth2jwt.security.JwtTokenProvider;
+import com.duc.oauth2jwt.security.JwtVerificationResult;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -29,23 +30,38 @@ public class AuthService {
 
     private final AuthenticationManager authenticationManager;
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider tokenProvider;
     private final RefreshTokenService refreshTokenService;
+    private final AccessTokenDenylist accessTokenDenylist;
+    private final LoginAttemptService loginAttemptService;
 
     public AuthResponse login(AuthRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        loginRequest.getEmail(),
-                        loginRequest.getPassword()
-                )
-        );
+        // A locked account is turned away before any user lookup or password hash
+        loginAttemptService.checkNotLocked(loginRequest.getEmail());
+
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            loginRequest.getEmail(),
+                            loginRequest.getPassword()
+                    )
+            );
+        } catch (BadCredentialsException ex) {
+            loginAttemptService.recordFailure(loginRequest.getEmail());
+            throw ex;
+        }
+        loginAttemptService.recordSuccess(loginRequest.getEmail());
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        User user = userRepository.findByEmail(loginRequest.getEmail())
-                .orElseThrow(() -> new AuthenticationException("User not found with email: " + loginRequest.getEmail()));
+        // CustomUserDetailsService already loaded the user (with its roles) during authentication
+        User user = authentication.getPrincipal() instanceof User principal
+                ? principal
+                : userRepository.findByEmail(loginRequest.getEmail())
+                        .orElseThrow(() -> new AuthenticationException("User not found with email: " + loginRequest.getEmail()));
 
         String accessToken = tokenProvider.generateToken(authentication);
         RefreshToken refreshToken = refreshTokenService.createRefreshToken(user);
@@ -72,18 +88,15 @@ public class AuthService {
         user.setProvider(User.AuthProvider.LOCAL);
 
         // Add USER role by default
-        Role userRole = roleRepository.findByName(Role.RoleName.ROLE_USER)
-                .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
+        Role userRole = roleRegistry.get(Role.RoleName.ROLE_USER);
         user.setRoles(Collections.singleton(userRole));
 
         User savedUser = userRepository.save(user);
 
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        registerRequest.getEmail(),
-                        registerRequest.getPassword()
-                )
-        );
+        // The password was just hashed from the request, so verifying it again through the AuthenticationManager
+        // would only cost a second BCrypt round and another user lookup
+        Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(
+                savedUser, null, savedUser.getAuthorities());
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
@@ -100,27 +113,34 @@ public class AuthService {
     }
 
     public AuthResponse refreshToken(String refreshToken) {
-        return refreshTokenService.findByToken(refreshToken)
-                .map(refreshTokenService::verifyExpiration)
-                .map(token -> {
-                    // Fetch user from database using userId stored in RefreshToken
-                    User user = userRepository.findById(token.getUserId())
-                            .orElseThrow(() -> new AuthenticationException("User not found"));
-                    
-                    String accessToken = tokenProvider.generateTokenFromUsername(user.getEmail());
-
-                    return AuthResponse.builder()
-                            .accessToken(accessToken)
-                            .refreshToken(refreshToken)
-                            .tokenType("Bearer")
-                            .expiresIn(tokenProvider.getJwtExpirationInMs())
-                            .user(mapUserToDto(user))
-                            .build();
-                })
-                .orElseThrow(() -> new AuthenticationException("Invalid refresh token"));
+        RefreshToken rotatedToken = refreshTokenService.rotateRefreshToken(refreshToken);
+
+        // Fetch user from database using userId stored in RefreshToken
+        User user = userRepository.findById(rotatedToken.getUserId())
+                .orElseThrow(() -> new AuthenticationException("User not found"));
+
+        String accessToken = tokenProvider.generateToken(user);
+
+        return AuthResponse.builder()
+                .accessToken(accessToken)
+                .refreshToken(rotatedToken.getToken())
+                .tokenType("Bearer")
+                .expiresIn(tokenProvider.getJwtExpirationInMs())
+                .user(mapUserToDto(user))
+                .build();
     }
 
-    public void logout(String refreshToken) {
+    public void logout(String refreshToken, String accessToken) {
+        // Without this the access token keeps working until it expires. Revoked first, so an unknown or already
+        // deleted refresh token cannot leave a valid access token behind.
+        if (accessToken != null) {
+            JwtVerificationResult verification = tokenProvider.verify(accessToken);
+            if (verification.isValid()) {
+                accessTokenDenylist.revoke(verification.getClaims().getTokenId(),
+                        verification.getClaims().getExpiration());
+            }
+        }
+
         refreshTokenService.deleteByToken(refreshToken);
     }
 
@@ -0,0 +1,93 @@
+package com.duc.oauth2jwt.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class CacheInvalidationService implements MessageListener, SubscriptionListener {
+
+    private static final String ALL_KEYS = "*";
+    private static final String SEPARATOR = "|";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Map<String, InvalidatableCache> caches;
+    private final String channel;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CacheInvalidationService(StringRedisTemplate redisTemplate,
+                                    List<InvalidatableCache> caches,
+                                    @Value("${app.cache.invalidation-channel:cache-invalidation}") String channel) {
+        this.redisTemplate = redisTemplate;
+        this.caches = caches.stream()
+                .collect(Collectors.toMap(InvalidatableCache::getCacheName, Function.identity()));
+        this.channel = channel;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public void invalidate(String cacheName, String key) {
+        apply(cacheName, key);
+        publish(cacheName, key);
+    }
+
+    public void invalidateAll(String cacheName) {
+        apply(cacheName, ALL_KEYS);
+        publish(cacheName, ALL_KEYS);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        // Message format: <nodeId>|<cacheName>|<key>, where key "*" clears the whole cache
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length != 3) {
+            log.warn("Ignoring malformed cache invalidation message");
+            return;
+        }
+        if (nodeId.equals(parts[0])) {
+            return;
+        }
+        apply(parts[1], parts[2]);
+    }
+
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+        // Invalidations published while the connection was down are lost, so start again from empty caches
+        log.info("Subscribed to cache invalidation channel, flushing local caches");
+        caches.values().forEach(InvalidatableCache::invalidateAll);
+    }
+
+    private void apply(String cacheName, String key) {
+        InvalidatableCache cache = caches.get(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (ALL_KEYS.equals(key)) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(key);
+        }
+    }
+
+    private void publish(String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(channel, nodeId + SEPARATOR + cacheName + SEPARATOR + key);
+        } catch (Exception ex) {
+            log.error("Could not publish cache invalidation for {} on other nodes", cacheName, ex);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.duc.oauth2jwt.service;
+
+public interface InvalidatableCache {
+
+    String getCacheName();
+
+    void invalidate(String key);
+
+    void invalidateAll();
+}
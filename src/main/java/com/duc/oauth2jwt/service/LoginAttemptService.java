@@ -0,0 +1,124 @@
+package com.duc.oauth2jwt.service;
+
+import com.duc.oauth2jwt.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+// Failed logins per account, counted in Redis so every node sees them. After `threshold` failures the account
+// is locked, and each further failure doubles the lock up to `max-lock`. While locked, a login attempt costs a
+// single Redis read instead of a user lookup and a password hash.
+@Slf4j
+@Service
+public class LoginAttemptService {
+
+    private static final String FAILURES_KEY_PREFIX = "login_failures:";
+    private static final String LOCK_KEY_PREFIX = "login_lock:";
+
+    private static final RedisScript<Long> FAILURE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/login_failure.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final int threshold;
+    private final Duration baseLock;
+    private final Duration maxLock;
+    private final Duration failureTtl;
+
+    private final Counter lockedOut;
+    private final Counter rejected;
+
+    public LoginAttemptService(StringRedisTemplate redisTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.security.lockout.enabled:true}") boolean enabled,
+                               @Value("${app.security.lockout.threshold:5}") int threshold,
+                               @Value("${app.security.lockout.base-lock:30s}") Duration baseLock,
+                               @Value("${app.security.lockout.max-lock:1h}") Duration maxLock,
+                               @Value("${app.security.lockout.failure-ttl:24h}") Duration failureTtl) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.baseLock = baseLock;
+        this.maxLock = maxLock;
+        this.failureTtl = failureTtl;
+        this.lockedOut = Counter.builder("account_lockout.locks").register(meterRegistry);
+        this.rejected = Counter.builder("account_lockout.rejected").register(meterRegistry);
+    }
+
+    public void checkNotLocked(String email) {
+        if (!enabled || email == null) {
+            return;
+        }
+        String lockedUntil;
+        try {
+            lockedUntil = redisTemplate.opsForValue().get(LOCK_KEY_PREFIX + normalize(email));
+        } catch (Exception ex) {
+            // Fail open like the rate limiter; the password check still runs
+            log.warn("Could not read the login lock, allowing the attempt", ex);
+            return;
+        }
+        if (lockedUntil == null) {
+            return;
+        }
+        long waitMs = Long.parseLong(lockedUntil) - System.currentTimeMillis();
+        rejected.increment();
+        throw new TooManyRequestsException("Account temporarily locked after too many failed logins",
+                Math.max(1, (waitMs + 999) / 1000));
+    }
+
+    public void recordFailure(String email) {
+        if (!enabled || email == null) {
+            return;
+        }
+        String account = normalize(email);
+        try {
+            Long lockMs = redisTemplate.execute(FAILURE_SCRIPT,
+                    List.of(FAILURES_KEY_PREFIX + account, LOCK_KEY_PREFIX + account),
+                    String.valueOf(System.currentTimeMillis()),
+                    String.valueOf(threshold),
+                    String.valueOf(baseLock.toMillis()),
+                    String.valueOf(maxLock.toMillis()),
+                    String.valueOf(failureTtl.toMillis()));
+            if (lockMs != null && lockMs > 0) {
+                lockedOut.increment();
+                log.info("Locked {} for {} ms after repeated failed logins", account, lockMs);
+            }
+        } catch (Exception ex) {
+            log.warn("Could not record a failed login", ex);
+        }
+    }
+
+    public void recordSuccess(String email) {
+        if (!enabled || email == null) {
+            return;
+        }
+        try {
+            reset(email);
+        } catch (Exception ex) {
+            log.warn("Could not reset failed logins", ex);
+        }
+    }
+
+    // Clears the lock and the failure count, so the next failure starts over from the base lock
+    public void unlock(String email) {
+        reset(email);
+    }
+
+    private void reset(String email) {
+        String account = normalize(email);
+        redisTemplate.delete(List.of(FAILURES_KEY_PREFIX + account, LOCK_KEY_PREFIX + account));
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,120 @@
+package com.duc.oauth2jwt.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+
+// Spring Data only removes @RedisHash index entries when it receives keyspace expiry events, so
+// this walks the legacy refresh_tokens structures in small SCAN batches and drops dangling members
+@Slf4j
+@Service
+public class RefreshTokenIndexReaper {
+
+    private static final String KEYSPACE = "refresh_tokens";
+    private static final String INDEX_KEY_PATTERN = KEYSPACE + ":token:*";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REAP_KEYSPACE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/refresh_token_reap_keyspace.lua"), List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REAP_INDEXES_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/refresh_token_reap_indexes.lua"), List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxEntriesPerRun;
+    private final long pauseBetweenBatchesMs;
+
+    private final Counter reclaimedKeyspaceMembers;
+    private final Counter reclaimedIndexMembers;
+    private final Counter examinedEntries;
+
+    // Cursors survive between runs so each run continues where the previous one stopped
+    private String keyspaceCursor = "0";
+    private String indexCursor = "0";
+
+    public RefreshTokenIndexReaper(StringRedisTemplate redisTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.redis.index-reaper.enabled:true}") boolean enabled,
+                                   @Value("${app.redis.index-reaper.batch-size:100}") int batchSize,
+                                   @Value("${app.redis.index-reaper.max-entries-per-run:1000}") int maxEntriesPerRun,
+                                   @Value("${app.redis.index-reaper.pause-between-batches-ms:10}") long pauseBetweenBatchesMs) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxEntriesPerRun = maxEntriesPerRun;
+        this.pauseBetweenBatchesMs = pauseBetweenBatchesMs;
+        this.reclaimedKeyspaceMembers = Counter.builder("refresh_token_reaper.reclaimed")
+                .tag("structure", "keyspace")
+                .register(meterRegistry);
+        this.reclaimedIndexMembers = Counter.builder("refresh_token_reaper.reclaimed")
+                .tag("structure", "index")
+                .register(meterRegistry);
+        // Entries the SCAN/SSCAN pages returned and the scripts checked, not every key the cursor walked past
+        this.examinedEntries = Counter.builder("refresh_token_reaper.examined")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.redis.index-reaper.interval-ms:60000}",
+            initialDelayString = "${app.redis.index-reaper.initial-delay-ms:60000}")
+    public synchronized void reap() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            keyspaceCursor = runPass(REAP_KEYSPACE_SCRIPT, Collections.singletonList(KEYSPACE), keyspaceCursor,
+                    reclaimedKeyspaceMembers);
+            indexCursor = runPass(REAP_INDEXES_SCRIPT, Collections.emptyList(), indexCursor,
+                    reclaimedIndexMembers, INDEX_KEY_PATTERN, KEYSPACE + ":");
+        } catch (InterruptedException ex) {
+            // Shutdown interrupted the pause between batches: keep the flag and stop this run
+            Thread.currentThread().interrupt();
+            log.info("Refresh token index reaper interrupted, stopping run");
+        } catch (Exception ex) {
+            log.warn("Refresh token index reaper run failed, will retry on next run", ex);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private String runPass(RedisScript<List> script, List<String> keys, String cursor, Counter reclaimedCounter,
+                           String... extraArgs) throws InterruptedException {
+        int budget = maxEntriesPerRun;
+        while (budget > 0) {
+            String[] args = new String[2 + extraArgs.length];
+            args[0] = cursor;
+            args[1] = String.valueOf(batchSize);
+            System.arraycopy(extraArgs, 0, args, 2, extraArgs.length);
+
+            List<?> result = redisTemplate.execute(script, keys, (Object[]) args);
+            if (result == null || result.size() < 3) {
+                return "0";
+            }
+
+            cursor = String.valueOf(result.get(0));
+            long examined = ((Number) result.get(1)).longValue();
+            long reclaimed = ((Number) result.get(2)).longValue();
+            examinedEntries.increment(examined);
+            reclaimedCounter.increment(reclaimed);
+
+            // A zero cursor means the full pass is done; the next run starts a fresh one
+            if ("0".equals(cursor)) {
+                break;
+            }
+            budget -= (int) Math.max(examined, 1);
+            if (pauseBetweenBatchesMs > 0) {
+                Thread.sleep(pauseBetweenBatchesMs);
+            }
+        }
+        return cursor;
+    }
+}
@@ -4,14 +4,19 @@ import com.duc.oauth2jwt.exception.AuthenticationException;
 import com.duc.oauth2jwt.model.RefreshToken;
 import com.duc.oauth2jwt.model.User;
 import com.duc.oauth2jwt.repository.RefreshTokenRepository;
+import com.duc.oauth2jwt.repository.RefreshTokenStore;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class RefreshTokenService {
@@ -19,46 +24,102 @@ public class RefreshTokenService {
     @Value("${app.jwt.refresh-token-expiration}")
     private Long refreshTokenDurationMs;
 
-    private final RefreshTokenRepository refreshTokenRepository;
+    // Tokens written by the old @RedisHash repository are looked up there when the hash-keyed store misses
+    @Value("${app.jwt.refresh-token-migration.legacy-fallback:true}")
+    private boolean legacyFallback;
 
-    public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
-    }
+    @Value("${app.jwt.refresh-token-migration.on-startup:false}")
+    private boolean migrateOnStartup;
+
+    private final RefreshTokenStore refreshTokenStore;
+    private final RefreshTokenRepository refreshTokenRepository;
 
     public RefreshToken createRefreshToken(User user) {
         // Delete existing token for this user if any
-        refreshTokenRepository.deleteByUserId(user.getId());
+        refreshTokenStore.deleteByUserId(user.getId());
 
         Instant expiryDate = Instant.now().plusMillis(refreshTokenDurationMs);
         Long ttlSeconds = refreshTokenDurationMs / 1000;
 
         RefreshToken refreshToken = RefreshToken.builder()
-                .id(UUID.randomUUID().toString())
-                .token(UUID.randomUUID().toString())
+                .token(RefreshTokenStore.newTokenValue(user.getId()))
                 .userId(user.getId())
                 .userEmail(user.getEmail())
                 .expiryDate(expiryDate)
                 .timeToLive(ttlSeconds)
                 .build();
 
-        return refreshTokenRepository.save(refreshToken);
+        return refreshTokenStore.save(refreshToken);
     }
 
-    public RefreshToken verifyExpiration(RefreshToken token) {
-        if (token.getExpiryDate().isBefore(Instant.now())) {
-            refreshTokenRepository.delete(token);
-            throw new AuthenticationException("Refresh token was expired. Please make a new sign in request");
+    // Validates, consumes and replaces the token in one atomic Redis call, so a retried refresh cannot reuse it
+    public RefreshToken rotateRefreshToken(String token) {
+        Instant expiryDate = Instant.now().plusMillis(refreshTokenDurationMs);
+
+        RefreshTokenStore.Rotation rotation = refreshTokenStore.rotate(token, expiryDate);
+        if (rotation.status() == RefreshTokenStore.RotationStatus.NOT_FOUND && legacyFallback
+                && refreshTokenRepository.findByToken(token).flatMap(this::migrate).isPresent()) {
+            rotation = refreshTokenStore.rotate(token, expiryDate);
         }
-        return token;
+
+        return switch (rotation.status()) {
+            case ROTATED -> rotation.refreshToken();
+            case EXPIRED -> throw new AuthenticationException("Refresh token was expired. Please make a new sign in request");
+            case NOT_FOUND -> throw new AuthenticationException("Invalid refresh token");
+        };
     }
 
     public void deleteByToken(String token) {
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(token)
-                .orElseThrow(() -> new AuthenticationException("Refresh token not found"));
-        refreshTokenRepository.delete(refreshToken);
+        if (refreshTokenStore.deleteByToken(token)) {
+            return;
+        }
+
+        RefreshToken legacyToken = legacyFallback ? refreshTokenRepository.findByToken(token).orElse(null) : null;
+        if (legacyToken == null) {
+            throw new AuthenticationException("Refresh token not found");
+        }
+        refreshTokenRepository.delete(legacyToken);
     }
 
     public void deleteByUserId(Long userId) {
-        refreshTokenRepository.deleteByUserId(userId);
+        refreshTokenStore.deleteByUserId(userId);
+    }
+
+    public List<RefreshToken> findSessionsByUserId(Long userId) {
+        return refreshTokenStore.findSessionsByUserId(userId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyTokensOnStartup() {
+        if (migrateOnStartup) {
+            log.info("Migrated {} legacy refresh tokens to the hash-keyed store", migrateLegacyTokens());
+        }
+    }
+
+    public int migrateLegacyTokens() {
+        int migrated = 0;
+        for (RefreshToken legacyToken : refreshTokenRepository.findAll()) {
+            // Index entries can outlive their hash, in which case the repository yields null
+            if (legacyToken != null && migrate(legacyToken).isPresent()) {
+                migrated++;
+            }
+        }
+        return migrated;
+    }
+
+    private Optional<RefreshToken> migrate(RefreshToken legacyToken) {
+        refreshTokenRepository.delete(legacyToken);
+        if (legacyToken.getExpiryDate() == null || legacyToken.getExpiryDate().isBefore(Instant.now())) {
+            return Optional.empty();
+        }
+
+        RefreshToken refreshToken = RefreshToken.builder()
+                .token(legacyToken.getToken())
+                .userId(legacyToken.getUserId())
+                .userEmail(legacyToken.getUserEmail())
+                .expiryDate(legacyToken.getExpiryDate())
+                .timeToLive(legacyToken.getExpiryDate().getEpochSecond() - Instant.now().getEpochSecond())
+                .build();
+        return Optional.of(refreshTokenStore.save(refreshToken));
     }
 }
@@ -0,0 +1,52 @@
+package com.duc.oauth2jwt.service;
+
+import com.duc.oauth2jwt.model.Role;
+import com.duc.oauth2jwt.repository.RoleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+// The roles table only holds the RoleName constants, so it is read once and served from memory.
+// The returned roles carry their database id and can be attached to User.roles without a lookup.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RoleRegistry {
+
+    private final RoleRepository roleRepository;
+
+    private volatile Map<Role.RoleName, Role> roles = Collections.emptyMap();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        refresh();
+    }
+
+    public Role get(Role.RoleName name) {
+        Role role = roles.get(name);
+        if (role == null) {
+            // Roles may have been seeded after startup; reload once before giving up
+            role = refresh().get(name);
+        }
+        if (role == null) {
+            throw new RuntimeException("Error: Role " + name + " is not found.");
+        }
+        return role;
+    }
+
+    public synchronized Map<Role.RoleName, Role> refresh() {
+        Map<Role.RoleName, Role> loaded = new EnumMap<>(Role.RoleName.class);
+        for (Role role : roleRepository.findAll()) {
+            loaded.put(role.getName(), role);
+        }
+        roles = Collections.unmodifiableMap(loaded);
+        log.info("Loaded {} roles into the role registry", loaded.size());
+        return roles;
+    }
+}
@@ -0,0 +1,96 @@
+package com.duc.oauth2jwt.service;
+
+import com.duc.oauth2jwt.security.TokenVersionCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+// Every access token carries the version its user had when it was issued. Bumping the version ("logout
+// everywhere", role changes) makes all older tokens fail the check in JwtAuthenticationFilter at once.
+// Like the access token denylist, the check fails open: while Redis cannot be read, tokens are judged by the
+// versions this node has cached and otherwise accepted, and each such decision counts as token_version.degraded.
+@Slf4j
+@Service
+public class TokenVersionService {
+
+    private static final String KEY_PREFIX = "token_version:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final TokenVersionCache tokenVersionCache;
+    private final CacheInvalidationService cacheInvalidationService;
+
+    private final Counter degradedChecks;
+    private final Counter degradedIssues;
+
+    public TokenVersionService(StringRedisTemplate redisTemplate,
+                               TokenVersionCache tokenVersionCache,
+                               CacheInvalidationService cacheInvalidationService,
+                               MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.tokenVersionCache = tokenVersionCache;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.degradedChecks = Counter.builder("token_version.degraded")
+                .tag("operation", "check")
+                .register(meterRegistry);
+        this.degradedIssues = Counter.builder("token_version.degraded")
+                .tag("operation", "issue")
+                .register(meterRegistry);
+    }
+
+    // Tokens issued before versions existed carry none and count as version 0
+    public boolean isCurrent(String email, Long tokenVersion) {
+        long version = tokenVersion == null ? 0L : tokenVersion;
+        try {
+            return version >= tokenVersionCache.get(email, this::readVersion);
+        } catch (Exception ex) {
+            // The token's own version is accepted; a bump made during the outage applies once Redis answers again
+            degradedChecks.increment();
+            log.warn("Could not read the token version, accepting the token's version", ex);
+            return true;
+        }
+    }
+
+    // Read straight from Redis: a cached value may not have seen a bump made on another node yet, and a new
+    // token must never be born already revoked
+    public long versionForNewToken(String email) {
+        try {
+            return readVersion(email);
+        } catch (Exception ex) {
+            // Login keeps working with the version this node last saw; if it is stale, the token is outdated
+            // once Redis answers again and the user has to log in again
+            degradedIssues.increment();
+            log.warn("Could not read the token version, issuing with the locally known version", ex);
+            Long cached = tokenVersionCache.getIfPresent(email);
+            return cached == null ? 0L : cached;
+        }
+    }
+
+    public void bump(String email) {
+        redisTemplate.opsForValue().increment(KEY_PREFIX + email);
+        cacheInvalidationService.invalidate(TokenVersionCache.CACHE_NAME, email);
+    }
+
+    // Increments in one pipelined round trip; the caller decides how to invalidate the cached versions
+    public void incrementAll(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String email : emails) {
+                connection.stringCommands().incr((KEY_PREFIX + email).getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+    }
+
+    private Long readVersion(String email) {
+        String value = redisTemplate.opsForValue().get(KEY_PREFIX + email);
+        return value == null ? 0L : Long.parseLong(value);
+    }
+}
@@ -0,0 +1,112 @@
+package com.duc.oauth2jwt.service;
+
+import com.duc.oauth2jwt.dto.UserDto;
+import com.duc.oauth2jwt.exception.BadRequestException;
+import com.duc.oauth2jwt.repository.UserRepository;
+import com.duc.oauth2jwt.repository.UserRoleRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class UserExportService {
+
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+
+    @Getter
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+        private final MediaType mediaType;
+        private final String fileExtension;
+
+        Format(MediaType mediaType, String fileExtension) {
+            this.mediaType = mediaType;
+            this.fileExtension = fileExtension;
+        }
+
+        public static Format from(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new BadRequestException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    // Rows arrive ordered by user id, so each user is complete once the id changes and only one user is held in memory
+    @Transactional(readOnly = true)
+    public void export(Format format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write("id,email,name,imageUrl,roles\n");
+        }
+
+        try (Stream<UserRoleRow> rows = userRepository.streamAllWithRoleNames()) {
+            Iterator<UserRoleRow> iterator = rows.iterator();
+            UserDto current = null;
+            while (iterator.hasNext()) {
+                UserRoleRow row = iterator.next();
+                if (current == null || !current.getId().equals(row.getId())) {
+                    if (current != null) {
+                        write(format, current, writer);
+                    }
+                    current = UserDto.builder()
+                            .id(row.getId())
+                            .email(row.getEmail())
+                            .name(row.getName())
+                            .imageUrl(row.getImageUrl())
+                            .roles(new HashSet<>())
+                            .build();
+                }
+                if (row.getRoleName() != null) {
+                    current.getRoles().add(row.getRoleName().name());
+                }
+            }
+            if (current != null) {
+                write(format, current, writer);
+            }
+        }
+        writer.flush();
+    }
+
+    private void write(Format format, UserDto user, Writer writer) throws IOException {
+        if (format == Format.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(user));
+        } else {
+            writer.write(String.valueOf(user.getId()));
+            writer.write(',');
+            writer.write(csv(user.getEmail()));
+            writer.write(',');
+            writer.write(csv(user.getName()));
+            writer.write(',');
+            writer.write(csv(user.getImageUrl()));
+            writer.write(',');
+            writer.write(csv(String.join(";", user.getRoles().stream().sorted().toList())));
+        }
+        writer.write('\n');
+    }
+
+    private String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
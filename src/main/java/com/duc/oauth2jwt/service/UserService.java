@@ -1,84 +1,355 @@
 package com.duc.oauth2jwt.service;
 
+import com.duc.oauth2jwt.dto.BulkRoleRequest;
+import com.duc.oauth2jwt.dto.BulkRoleResultDto;
+import com.duc.oauth2jwt.dto.SessionDto;
 import com.duc.oauth2jwt.dto.UserDto;
+import com.duc.oauth2jwt.dto.UserPageDto;
+import com.duc.oauth2jwt.exception.BadRequestException;
 import com.duc.oauth2jwt.exception.ResourceNotFoundException;
 import com.duc.oauth2jwt.model.Role;
 import com.duc.oauth2jwt.model.User;
-import com.duc.oauth2jwt.repository.RoleRepository;
 import com.duc.oauth2jwt.repository.UserRepository;
+import com.duc.oauth2jwt.repository.UserRoleMembership;
+import com.duc.oauth2jwt.repository.UserRoleRow;
+import com.duc.oauth2jwt.security.TokenVersionCache;
+import com.duc.oauth2jwt.security.UserDetailsCache;
+import com.duc.oauth2jwt.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenVersionService tokenVersionService;
+    private final LoginAttemptService loginAttemptService;
 
+    @Value("${app.admin.users.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.admin.users.max-page-size:200}")
+    private int maxPageSize;
+
+    @Value("${app.admin.bulk-roles.batch-size:500}")
+    private int bulkRoleBatchSize;
+
+    @Value("${app.admin.bulk-roles.max-users:10000}")
+    private int bulkRoleMaxUsers;
+
+    @Value("${app.admin.bulk-roles.invalidate-all-threshold:1000}")
+    private int bulkRoleInvalidateAllThreshold;
+
+    @Transactional(readOnly = true)
     public UserDto getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String currentUserEmail = authentication.getName();
 
-        User user = userRepository.findByEmail(currentUserEmail)
+        return mapRowsToDto(userRepository.findRowsByEmail(currentUserEmail))
                 .orElseThrow(() -> new ResourceNotFoundException("User", "email", currentUserEmail));
-
-        return mapUserToDto(user);
     }
 
+    @Transactional(readOnly = true)
     public UserDto getUserById(Long id) {
-        User user = userRepository.findById(id)
+        return mapRowsToDto(userRepository.findRowsById(id))
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
-
-        return mapUserToDto(user);
     }
 
-    public List<UserDto> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(this::mapUserToDto)
+    public List<SessionDto> getCurrentUserSessions() {
+        return refreshTokenService.findSessionsByUserId(getCurrentUserId()).stream()
+                .map(session -> SessionDto.builder()
+                        .id(session.getId())
+                        .createdAt(session.getCreatedAt())
+                        .expiresAt(session.getExpiryDate())
+                        .build())
                 .collect(Collectors.toList());
     }
 
+    public void revokeCurrentUserSessions() {
+        refreshTokenService.deleteByUserId(getCurrentUserId());
+    }
+
+    // Refresh tokens are deleted and every access token already issued is outdated by the version bump
+    public void logoutEverywhere() {
+        refreshTokenService.deleteByUserId(getCurrentUserId());
+        tokenVersionService.bump(SecurityContextHolder.getContext().getAuthentication().getName());
+    }
+
+    public UserPageDto getUsers(String cursor, Integer size, Role.RoleName role, User.AuthProvider provider) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        long afterId = decodeCursor(cursor);
+
+        // One extra row tells whether another page exists without a COUNT query
+        List<Long> ids = userRepository.findIdPageAfter(afterId, role, provider, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = ids.size() > pageSize;
+        List<Long> pageIds = hasMore ? ids.subList(0, pageSize) : ids;
+
+        // Second statement loads the page with its roles; the count stays at two whatever the page size
+        List<User> page = pageIds.isEmpty() ? Collections.emptyList() : userRepository.findAllWithRolesByIdIn(pageIds);
+
+        return UserPageDto.builder()
+                .items(page.stream().map(this::mapUserToDto).collect(Collectors.toList()))
+                .nextCursor(hasMore ? encodeCursor(pageIds.get(pageIds.size() - 1)) : null)
+                .build();
+    }
+
     public UserDto giveAdminRole(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
 
-        Role adminRole = roleRepository.findByName(Role.RoleName.ROLE_ADMIN)
-                .orElseThrow(() -> new RuntimeException("Error: Admin Role is not found."));
+        Role adminRole = roleRegistry.get(Role.RoleName.ROLE_ADMIN);
 
         Set<Role> roles = new HashSet<>(user.getRoles());
         roles.add(adminRole);
         user.setRoles(roles);
 
-        return mapUserToDto(userRepository.save(user));
+        User savedUser = userRepository.save(user);
+        cacheInvalidationService.invalidate(UserDetailsCache.CACHE_NAME, user.getEmail());
+        // Tokens carrying the old roles stop working instead of living until they expire
+        tokenVersionService.bump(user.getEmail());
+
+        return mapUserToDto(savedUser);
+    }
+
+    public void unlockUser(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+
+        loginAttemptService.unlock(user.getEmail());
     }
 
     public UserDto removeAdminRole(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
 
-        Role adminRole = roleRepository.findByName(Role.RoleName.ROLE_ADMIN)
-                .orElseThrow(() -> new RuntimeException("Error: Admin Role is not found."));
+        Role adminRole = roleRegistry.get(Role.RoleName.ROLE_ADMIN);
 
         Set<Role> roles = new HashSet<>(user.getRoles());
         roles.remove(adminRole);
 
         // Ensure user has at least ROLE_USER
-        Role userRole = roleRepository.findByName(Role.RoleName.ROLE_USER)
-                .orElseThrow(() -> new RuntimeException("Error: User Role is not found."));
+        Role userRole = roleRegistry.get(Role.RoleName.ROLE_USER);
         roles.add(userRole);
 
         user.setRoles(roles);
 
-        return mapUserToDto(userRepository.save(user));
+        User savedUser = userRepository.save(user);
+        cacheInvalidationService.invalidate(UserDetailsCache.CACHE_NAME, user.getEmail());
+        // Tokens carrying the old roles stop working instead of living until they expire
+        tokenVersionService.bump(user.getEmail());
+
+        return mapUserToDto(savedUser);
+    }
+
+    @Transactional
+    public BulkRoleResultDto updateRoles(BulkRoleRequest request) {
+        if (request.getAction() == BulkRoleRequest.Action.REVOKE && request.getRole() == Role.RoleName.ROLE_USER) {
+            throw new BadRequestException("ROLE_USER cannot be revoked");
+        }
+        boolean byIds = request.getUserIds() != null && !request.getUserIds().isEmpty();
+        BulkRoleRequest.Filter filter = request.getFilter();
+        if (byIds == (filter != null)) {
+            throw new BadRequestException("Either userIds or filter must be given");
+        }
+        if (filter != null && filter.getRole() == null && filter.getProvider() == null) {
+            throw new BadRequestException("Filter needs a role or a provider");
+        }
+
+        Long roleId = roleRegistry.get(request.getRole()).getId();
+        List<BulkRoleResultDto.Item> results = new ArrayList<>();
+        Set<String> changedEmails = new HashSet<>();
+
+        if (byIds) {
+            List<Long> ids = new ArrayList<>(new LinkedHashSet<>(request.getUserIds()));
+            if (ids.size() > bulkRoleMaxUsers) {
+                throw new BadRequestException("At most " + bulkRoleMaxUsers + " users can be updated per request");
+            }
+            for (int from = 0; from < ids.size(); from += bulkRoleBatchSize) {
+                List<Long> chunk = ids.subList(from, Math.min(from + bulkRoleBatchSize, ids.size()));
+                applyRoleChunk(chunk, roleId, request.getAction(), results, changedEmails);
+            }
+        } else {
+            // Walks the matching ids with the same keyset seek as the admin listing; rows already written are
+            // behind the cursor, so revoking the role being filtered on does not skip anyone
+            long afterId = 0L;
+            List<Long> chunk;
+            do {
+                chunk = userRepository.findIdPageAfter(afterId, filter.getRole(), filter.getProvider(),
+                        PageRequest.of(0, bulkRoleBatchSize));
+                if (results.size() + chunk.size() > bulkRoleMaxUsers) {
+                    throw new BadRequestException("Filter matches more than " + bulkRoleMaxUsers + " users");
+                }
+                if (!chunk.isEmpty()) {
+                    applyRoleChunk(chunk, roleId, request.getAction(), results, changedEmails);
+                    afterId = chunk.get(chunk.size() - 1);
+                }
+            } while (chunk.size() == bulkRoleBatchSize);
+        }
+
+        evictAfterCommit(changedEmails);
+
+        Map<BulkRoleResultDto.Status, Long> counts = results.stream()
+                .collect(Collectors.groupingBy(BulkRoleResultDto.Item::getStatus, Collectors.counting()));
+
+        return BulkRoleResultDto.builder()
+                .action(request.getAction())
+                .role(request.getRole())
+                .updated(counts.getOrDefault(BulkRoleResultDto.Status.UPDATED, 0L).intValue())
+                .unchanged(counts.getOrDefault(BulkRoleResultDto.Status.UNCHANGED, 0L).intValue())
+                .notFound(counts.getOrDefault(BulkRoleResultDto.Status.NOT_FOUND, 0L).intValue())
+                .results(results)
+                .build();
+    }
+
+    private void applyRoleChunk(List<Long> ids, Long roleId, BulkRoleRequest.Action action,
+                                List<BulkRoleResultDto.Item> results, Set<String> changedEmails) {
+        Map<Long, UserRoleMembership> memberships = userRepository.findRoleMembershipByIdIn(ids, roleId).stream()
+                .collect(Collectors.toMap(UserRoleMembership::getId, Function.identity()));
+        boolean grant = action == BulkRoleRequest.Action.GRANT;
+
+        List<Long> toChange = new ArrayList<>();
+        for (Long id : ids) {
+            UserRoleMembership membership = memberships.get(id);
+            BulkRoleResultDto.Status status;
+            if (membership == null) {
+                status = BulkRoleResultDto.Status.NOT_FOUND;
+            } else if (Boolean.TRUE.equals(membership.getMember()) == grant) {
+                status = BulkRoleResultDto.Status.UNCHANGED;
+            } else {
+                status = BulkRoleResultDto.Status.UPDATED;
+                toChange.add(id);
+                changedEmails.add(membership.getEmail());
+            }
+            results.add(BulkRoleResultDto.Item.builder().userId(id).status(status).build());
+        }
+
+        if (toChange.isEmpty()) {
+            return;
+        }
+        if (grant) {
+            userRepository.insertRole(toChange, roleId);
+        } else {
+            userRepository.deleteRole(toChange, roleId);
+        }
+    }
+
+    // Evicting before the commit would let a concurrent request cache the old roles again. The roles are
+    // already committed when this runs, so a Redis failure is logged instead of turning into a 500: the
+    // local caches are still cleared and the tokens issued before the change expire on their own
+    private void evictAfterCommit(Set<String> emails) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        Runnable evict = () -> {
+            try {
+                tokenVersionService.incrementAll(emails);
+            } catch (Exception ex) {
+                log.error("Could not bump token versions for {} users after a role change", emails.size(), ex);
+            }
+            // Past the threshold one "clear everything" message is cheaper than one publish per user
+            if (emails.size() > bulkRoleInvalidateAllThreshold) {
+                cacheInvalidationService.invalidateAll(UserDetailsCache.CACHE_NAME);
+                cacheInvalidationService.invalidateAll(TokenVersionCache.CACHE_NAME);
+            } else {
+                emails.forEach(email -> {
+                    cacheInvalidationService.invalidate(UserDetailsCache.CACHE_NAME, email);
+                    cacheInvalidationService.invalidate(TokenVersionCache.CACHE_NAME, email);
+                });
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        } else {
+            evict.run();
+        }
+    }
+
+    private String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    private Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        // Principals built from token claims or the principal cache already carry the id
+        if (authentication.getPrincipal() instanceof UserPrincipal userPrincipal && userPrincipal.getId() != null) {
+            return userPrincipal.getId();
+        }
+        if (authentication.getPrincipal() instanceof User user) {
+            return user.getId();
+        }
+
+        String currentUserEmail = authentication.getName();
+        return userRepository.findByEmail(currentUserEmail)
+                .map(User::getId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "email", currentUserEmail));
+    }
+
+    // All rows belong to the same user and differ only in the role column
+    private Optional<UserDto> mapRowsToDto(List<UserRoleRow> rows) {
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        UserRoleRow first = rows.get(0);
+        Set<String> roles = rows.stream()
+                .map(UserRoleRow::getRoleName)
+                .filter(Objects::nonNull)
+                .map(Enum::name)
+                .collect(Collectors.toSet());
+
+        return Optional.of(UserDto.builder()
+                .id(first.getId())
+                .email(first.getEmail())
+                .name(first.getName())
+                .imageUrl(first.getImageUrl())
+                .roles(roles)
+                .build());
     }
 
     private UserDto mapUserToDto(User user) {
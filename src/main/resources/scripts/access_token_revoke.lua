@@ -0,0 +1,11 @@
+-- Adds one access token id to the denylist and tells every node to add it to its local filter.
+-- KEYS[1] = denylist entry key, KEYS[2] = sorted set of revoked ids (score = token expiry)
+-- ARGV[1] = token id, ARGV[2] = remaining lifetime in ms, ARGV[3] = expiry epoch ms,
+-- ARGV[4] = now epoch ms, ARGV[5] = revocation channel
+redis.call('SET', KEYS[1], '1', 'PX', ARGV[2])
+redis.call('ZADD', KEYS[2], ARGV[3], ARGV[1])
+redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', ARGV[4])
+-- The sorted set lives as long as the last entry in it
+redis.call('PEXPIREAT', KEYS[2], redis.call('ZRANGE', KEYS[2], -1, -1, 'WITHSCORES')[2])
+redis.call('PUBLISH', ARGV[5], ARGV[1])
+return 1
@@ -0,0 +1,25 @@
+-- Counts a failed login and locks the account once the count reaches the threshold. Each further failure
+-- doubles the lock, up to the maximum.
+-- KEYS[1] = failure counter, KEYS[2] = lock
+-- ARGV[1] = now epoch ms, ARGV[2] = threshold, ARGV[3] = base lock ms, ARGV[4] = max lock ms,
+-- ARGV[5] = counter ttl ms
+-- Returns the lock duration in ms, 0 when the account is not locked by this failure
+local failures = redis.call('INCR', KEYS[1])
+redis.call('PEXPIRE', KEYS[1], ARGV[5])
+local threshold = tonumber(ARGV[2])
+if failures < threshold then
+    return 0
+end
+local maxLock = tonumber(ARGV[4])
+local lock = tonumber(ARGV[3])
+for _ = 1, failures - threshold do
+    lock = lock * 2
+    if lock >= maxLock then
+        break
+    end
+end
+if lock > maxLock then
+    lock = maxLock
+end
+redis.call('SET', KEYS[2], tonumber(ARGV[1]) + lock, 'PX', lock)
+return lock
@@ -0,0 +1,29 @@
+-- GCRA over several limiter keys at once: the request passes only if every key has room, and only then
+-- are all of them charged. Each key stores its theoretical arrival time (TAT) in epoch ms.
+-- KEYS[i] = limiter key, ARGV[1] = now epoch ms,
+-- ARGV[2i] = emission interval ms (period / limit), ARGV[2i+1] = period ms (burst tolerance)
+-- Returns 0 when allowed, otherwise the ms to wait before the request would pass
+local now = tonumber(ARGV[1])
+local newTats = {}
+local retryAfter = 0
+for i, key in ipairs(KEYS) do
+    local interval = tonumber(ARGV[2 * i])
+    local period = tonumber(ARGV[2 * i + 1])
+    local tat = tonumber(redis.call('GET', key)) or now
+    if tat < now then
+        tat = now
+    end
+    local newTat = tat + interval
+    local wait = newTat - now - period
+    if wait > retryAfter then
+        retryAfter = wait
+    end
+    newTats[i] = newTat
+end
+if retryAfter > 0 then
+    return retryAfter
+end
+for i, key in ipairs(KEYS) do
+    redis.call('SET', key, newTats[i], 'PX', newTats[i] - now)
+end
+return 0
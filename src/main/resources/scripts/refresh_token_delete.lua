@@ -0,0 +1,7 @@
+-- Deletes one refresh token and removes it from its owner's session sorted set.
+-- KEYS[1] = token key, KEYS[2] = owner's sessions key (both carry the owner's {userId} tag), ARGV[1] = token hash
+if redis.call('DEL', KEYS[1]) == 0 then
+    return 0
+end
+redis.call('ZREM', KEYS[2], ARGV[1])
+return 1
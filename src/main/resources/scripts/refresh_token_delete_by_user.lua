@@ -0,0 +1,12 @@
+-- Deletes the given refresh tokens of a user and drops them from the user's session sorted set,
+-- removing the set once it is empty.
+-- KEYS[1] = user sessions key, KEYS[2..n] = token keys, ARGV[1..n-1] = token hashes (same order)
+local deleted = 0
+for i = 2, #KEYS do
+    deleted = deleted + redis.call('DEL', KEYS[i])
+    redis.call('ZREM', KEYS[1], ARGV[i - 1])
+end
+if redis.call('ZCARD', KEYS[1]) == 0 then
+    redis.call('DEL', KEYS[1])
+end
+return deleted
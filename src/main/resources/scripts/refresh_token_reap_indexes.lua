@@ -0,0 +1,14 @@
+-- One incremental step over the @RedisHash secondary index sets, dropping ids whose hash has expired.
+-- ARGV[1] = SCAN cursor, ARGV[2] = COUNT hint, ARGV[3] = index key pattern, ARGV[4] = hash key prefix
+-- Returns {nextCursor, examined, reclaimed}; examined counts the entries the page returned.
+local page = redis.call('SCAN', ARGV[1], 'MATCH', ARGV[3], 'COUNT', ARGV[2])
+local reclaimed = 0
+for _, indexKey in ipairs(page[2]) do
+    for _, id in ipairs(redis.call('SMEMBERS', indexKey)) do
+        if redis.call('EXISTS', ARGV[4] .. id) == 0 then
+            redis.call('SREM', indexKey, id)
+            reclaimed = reclaimed + 1
+        end
+    end
+end
+return {page[1], #page[2], reclaimed}
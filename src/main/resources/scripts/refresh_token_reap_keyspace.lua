@@ -0,0 +1,18 @@
+-- One incremental step over the @RedisHash keyspace set, dropping ids whose hash has expired.
+-- KEYS[1] = keyspace set (e.g. refresh_tokens), ARGV[1] = SSCAN cursor, ARGV[2] = COUNT hint
+-- Returns {nextCursor, examined, reclaimed}; examined counts the entries the page returned.
+local page = redis.call('SSCAN', KEYS[1], ARGV[1], 'COUNT', ARGV[2])
+local reclaimed = 0
+for _, id in ipairs(page[2]) do
+    local hashKey = KEYS[1] .. ':' .. id
+    if redis.call('EXISTS', hashKey) == 0 then
+        redis.call('SREM', KEYS[1], id)
+        local idxKey = hashKey .. ':idx'
+        for _, indexKey in ipairs(redis.call('SMEMBERS', idxKey)) do
+            redis.call('SREM', indexKey, id)
+        end
+        redis.call('DEL', idxKey)
+        reclaimed = reclaimed + 1
+    end
+end
+return {page[1], #page[2], reclaimed}
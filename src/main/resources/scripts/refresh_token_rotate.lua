@@ -0,0 +1,24 @@
+-- Validates and consumes a refresh token and stores its replacement in one atomic step.
+-- KEYS[1] = old token key, KEYS[2] = new token key, KEYS[3] = owner's sessions key (all carry the {userId} tag)
+-- ARGV[1] = now (ms), ARGV[2] = new expiry (ms), ARGV[3] = old token hash, ARGV[4] = new token hash
+-- Returns {1, userId, userEmail} on success, {0} when the token is unknown, {-1} when it has expired.
+local fields = redis.call('HMGET', KEYS[1], 'userId', 'userEmail', 'expiryDate')
+local userId, userEmail, expiryDate = fields[1], fields[2], fields[3]
+if not userId then
+    return {0}
+end
+
+redis.call('DEL', KEYS[1])
+redis.call('ZREM', KEYS[3], ARGV[3])
+if tonumber(expiryDate) < tonumber(ARGV[1]) then
+    return {-1}
+end
+
+redis.call('HSET', KEYS[2], 'userId', userId, 'userEmail', userEmail, 'expiryDate', ARGV[2], 'createdAt', ARGV[1])
+redis.call('PEXPIREAT', KEYS[2], ARGV[2])
+
+redis.call('ZREMRANGEBYSCORE', KEYS[3], '-inf', '(' .. ARGV[1])
+redis.call('ZADD', KEYS[3], ARGV[2], ARGV[4])
+local latest = redis.call('ZRANGE', KEYS[3], -1, -1, 'WITHSCORES')
+redis.call('PEXPIREAT', KEYS[3], latest[2])
+return {1, userId, userEmail}
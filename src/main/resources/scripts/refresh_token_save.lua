@@ -0,0 +1,11 @@
+-- Stores a refresh token and indexes it in its owner's session sorted set (scored by expiry).
+-- KEYS[1] = token key, KEYS[2] = user sessions key
+-- ARGV[1] = userId, ARGV[2] = userEmail, ARGV[3] = expiry (ms), ARGV[4] = now (ms), ARGV[5] = token hash
+redis.call('HSET', KEYS[1], 'userId', ARGV[1], 'userEmail', ARGV[2], 'expiryDate', ARGV[3], 'createdAt', ARGV[4])
+redis.call('PEXPIREAT', KEYS[1], ARGV[3])
+
+redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', '(' .. ARGV[4])
+redis.call('ZADD', KEYS[2], ARGV[3], ARGV[5])
+local latest = redis.call('ZRANGE', KEYS[2], -1, -1, 'WITHSCORES')
+redis.call('PEXPIREAT', KEYS[2], latest[2])
+return 1
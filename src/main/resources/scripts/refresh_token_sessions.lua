@@ -0,0 +1,21 @@
+-- Lists the live sessions of a user, pruning expired or dangling members on the way.
+-- KEYS[1] = user sessions key, KEYS[2..n] = token keys of the members read before the call,
+-- ARGV[1] = now (ms), ARGV[2..n] = token hashes (same order as the token keys)
+-- Returns a flat list of {hash, expiry, createdAt} triples; createdAt is empty for migrated tokens.
+redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', '(' .. ARGV[1])
+local result = {}
+for i = 2, #KEYS do
+    local hash = ARGV[i]
+    local expiry = redis.call('ZSCORE', KEYS[1], hash)
+    if expiry then
+        local fields = redis.call('HMGET', KEYS[i], 'userId', 'createdAt')
+        if fields[1] then
+            table.insert(result, hash)
+            table.insert(result, expiry)
+            table.insert(result, fields[2] or '')
+        else
+            redis.call('ZREM', KEYS[1], hash)
+        end
+    end
+end
+return result
@@ -4,9 +4,9 @@ import com.duc.oauth2jwt.dto.AuthRequest;
 import com.duc.oauth2jwt.dto.AuthResponse;
 import com.duc.oauth2jwt.dto.RegisterRequest;
 import com.duc.oauth2jwt.dto.UserDto;
+import com.duc.oauth2jwt.dto.UserPageDto;
 import com.duc.oauth2jwt.model.Role;
 import com.duc.oauth2jwt.repository.RoleRepository;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,8 +20,6 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -127,12 +125,40 @@ public class AdminControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andReturn();
 
-        List<UserDto> users = objectMapper.readValue(
-                result.getResponse().getContentAsString(),
-                new TypeReference<List<UserDto>>() {});
+        UserPageDto page = objectMapper.readValue(
+                result.getResponse().getContentAsString(), UserPageDto.class);
+
+        assertNotNull(page.getItems());
+        assertTrue(page.getItems().size() >= 2); // At least admin and regular user
+        assertNull(page.getNextCursor()); // Everything fits on the default page
+    }
+
+    @Test
+    public void testGetAllUsersFollowsCursor() throws Exception {
+        // First page holds a single user and points to the next one
+        MvcResult firstResult = mockMvc.perform(get("/admin/users")
+                        .param("size", "1")
+                        .header("Authorization", "Bearer " + adminAccessToken))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        UserPageDto firstPage = objectMapper.readValue(
+                firstResult.getResponse().getContentAsString(), UserPageDto.class);
+        assertEquals(1, firstPage.getItems().size());
+        assertNotNull(firstPage.getNextCursor());
+
+        // Following the cursor continues after the last id of the first page
+        MvcResult secondResult = mockMvc.perform(get("/admin/users")
+                        .param("size", "1")
+                        .param("cursor", firstPage.getNextCursor())
+                        .header("Authorization", "Bearer " + adminAccessToken))
+                .andExpect(status().isOk())
+                .andReturn();
 
-        assertNotNull(users);
-        assertTrue(users.size() >= 2); // At least admin and regular user
+        UserPageDto secondPage = objectMapper.readValue(
+                secondResult.getResponse().getContentAsString(), UserPageDto.class);
+        assertEquals(1, secondPage.getItems().size());
+        assertTrue(secondPage.getItems().get(0).getId() > firstPage.getItems().get(0).getId());
     }
 
     @Test
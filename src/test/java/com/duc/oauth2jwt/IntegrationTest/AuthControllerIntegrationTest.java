@@ -140,11 +140,26 @@ public class AuthControllerIntegrationTest {
         String refreshToken = registerResponse.getRefreshToken();
 
         // Then use refresh token to get a new access token
-        mockMvc.perform(post("/auth/refresh")
+        MvcResult refreshResult = mockMvc.perform(post("/auth/refresh")
                         .param("refreshToken", refreshToken))
                 .andExpect(status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.accessToken").exists())
-                .andExpect(MockMvcResultMatchers.jsonPath("$.refreshToken").value(refreshToken));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.refreshToken").exists())
+                .andReturn();
+
+        // The refresh token is rotated: a new one is returned and the old one is consumed
+        AuthResponse refreshResponse = objectMapper.readValue(
+                refreshResult.getResponse().getContentAsString(), AuthResponse.class);
+        assertNotEquals(refreshToken, refreshResponse.getRefreshToken());
+
+        mockMvc.perform(post("/auth/refresh")
+                        .param("refreshToken", refreshToken))
+                .andExpect(status().isUnauthorized());
+
+        // The rotated token keeps working
+        mockMvc.perform(post("/auth/refresh")
+                        .param("refreshToken", refreshResponse.getRefreshToken()))
+                .andExpect(status().isOk());
     }
 
     @Test
@@ -9,6 +9,8 @@ import com.duc.oauth2jwt.model.User;
 import com.duc.oauth2jwt.repository.RefreshTokenRepository;
 import com.duc.oauth2jwt.repository.RoleRepository;
 import com.duc.oauth2jwt.repository.UserRepository;
+import com.duc.oauth2jwt.security.JwtTokenProvider;
+import com.duc.oauth2jwt.service.AccessTokenDenylist;
 import com.duc.oauth2jwt.service.AuthService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -38,6 +40,12 @@ public class AuthServiceIntegrationTest {
     @Autowired
     private RefreshTokenRepository refreshTokenRepository;
 
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private AccessTokenDenylist accessTokenDenylist;
+
     @BeforeEach
     public void setup() {
         refreshTokenRepository.deleteAll();
@@ -154,8 +162,13 @@ public class AuthServiceIntegrationTest {
 
         assertNotNull(refreshResponse);
         assertNotNull(refreshResponse.getAccessToken());
-        assertEquals(refreshToken, refreshResponse.getRefreshToken());
+        assertNotEquals(refreshToken, refreshResponse.getRefreshToken());
         assertEquals("refresh-service-test@example.com", refreshResponse.getUser().getEmail());
+
+        // The consumed refresh token cannot be used again
+        assertThrows(AuthenticationException.class, () -> {
+            authService.refreshToken(refreshToken);
+        });
     }
 
     @Test
@@ -177,11 +190,49 @@ public class AuthServiceIntegrationTest {
         String refreshToken = registerResponse.getRefreshToken();
 
         // Then logout
-        authService.logout(refreshToken);
+        authService.logout(refreshToken, registerResponse.getAccessToken());
 
         // Try to refresh with the logged out token
         assertThrows(AuthenticationException.class, () -> {
             authService.refreshToken(refreshToken);
         });
     }
+
+    @Test
+    public void testLogoutRevokesAccessToken() {
+        // First register
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setName("Logout Access Test");
+        registerRequest.setEmail("logout-access-test@example.com");
+        registerRequest.setPassword("Password123");
+        AuthResponse registerResponse = authService.register(registerRequest);
+
+        String accessToken = registerResponse.getAccessToken();
+        String tokenId = tokenProvider.verify(accessToken).getClaims().getTokenId();
+        assertFalse(accessTokenDenylist.isRevoked(tokenId));
+
+        // Then logout with both tokens
+        authService.logout(registerResponse.getRefreshToken(), accessToken);
+
+        assertTrue(accessTokenDenylist.isRevoked(tokenId));
+    }
+
+    @Test
+    public void testLogoutWithUnknownRefreshTokenStillRevokesAccessToken() {
+        // First register
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setName("Logout Unknown Test");
+        registerRequest.setEmail("logout-unknown-test@example.com");
+        registerRequest.setPassword("Password123");
+        AuthResponse registerResponse = authService.register(registerRequest);
+
+        String accessToken = registerResponse.getAccessToken();
+        String tokenId = tokenProvider.verify(accessToken).getClaims().getTokenId();
+
+        assertThrows(AuthenticationException.class, () -> {
+            authService.logout("unknown-refresh-token", accessToken);
+        });
+
+        assertTrue(accessTokenDenylist.isRevoked(tokenId));
+    }
 }
@@ -0,0 +1,31 @@
+package com.duc.oauth2jwt;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Redis points at a closed port: the context must still start and keep retrying the subscription
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:redis-down;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.data.redis.host=localhost",
+        "spring.data.redis.port=1",
+        "spring.data.redis.timeout=1000"
+})
+class RedisUnavailableStartupTests {
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Test
+    void contextStartsWithoutRedis() {
+        assertTrue(redisMessageListenerContainer.isRunning());
+        assertFalse(redisMessageListenerContainer.isListening());
+    }
+}
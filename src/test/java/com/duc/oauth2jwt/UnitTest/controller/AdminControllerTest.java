@@ -1,7 +1,12 @@
 package com.duc.oauth2jwt.UnitTest.controller;
 
 import com.duc.oauth2jwt.controller.AdminController;
+import com.duc.oauth2jwt.dto.BulkRoleRequest;
+import com.duc.oauth2jwt.dto.BulkRoleResultDto;
 import com.duc.oauth2jwt.dto.UserDto;
+import com.duc.oauth2jwt.dto.UserPageDto;
+import com.duc.oauth2jwt.model.Role;
+import com.duc.oauth2jwt.service.UserExportService;
 import com.duc.oauth2jwt.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,14 +15,24 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -30,11 +45,15 @@ public class AdminControllerTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private UserExportService userExportService;
+
     @InjectMocks
     private AdminController adminController;
 
     @BeforeEach
     public void setup() {
+        ReflectionTestUtils.setField(adminController, "exportTimeout", Duration.ofMinutes(30));
         mockMvc = MockMvcBuilders
                 .standaloneSetup(adminController)
                 .build();
@@ -53,19 +72,70 @@ public class AdminControllerTest {
         user2.setEmail("user2@example.com");
         user2.setName("User Two");
 
-        List<UserDto> userList = Arrays.asList(user1, user2);
+        UserPageDto page = UserPageDto.builder()
+                .items(Arrays.asList(user1, user2))
+                .nextCursor("Mg")
+                .build();
 
-        when(userService.getAllUsers()).thenReturn(userList);
+        when(userService.getUsers(null, 2, Role.RoleName.ROLE_USER, null)).thenReturn(page);
 
         // Act & Assert
-        mockMvc.perform(get("/admin/users"))
+        mockMvc.perform(get("/admin/users").param("size", "2").param("role", "ROLE_USER"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[0].id").value(1))
-                .andExpect(jsonPath("$[0].email").value("user1@example.com"))
-                .andExpect(jsonPath("$[1].id").value(2))
-                .andExpect(jsonPath("$[1].email").value("user2@example.com"));
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.items[0].email").value("user1@example.com"))
+                .andExpect(jsonPath("$.items[1].id").value(2))
+                .andExpect(jsonPath("$.items[1].email").value("user2@example.com"))
+                .andExpect(jsonPath("$.nextCursor").value("Mg"));
+    }
+
+    @Test
+    public void testExportUsers() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(1);
+            outputStream.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(userExportService).export(eq(UserExportService.Format.NDJSON), any(OutputStream.class));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/admin/users/export").param("format", "ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        assertEquals(Duration.ofMinutes(30).toMillis(), result.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=users.ndjson"))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+
+    @Test
+    public void testUpdateRoles() throws Exception {
+        // Arrange
+        BulkRoleResultDto result = BulkRoleResultDto.builder()
+                .action(BulkRoleRequest.Action.GRANT)
+                .role(Role.RoleName.ROLE_ADMIN)
+                .updated(1)
+                .notFound(1)
+                .results(List.of(
+                        BulkRoleResultDto.Item.builder().userId(1L).status(BulkRoleResultDto.Status.UPDATED).build(),
+                        BulkRoleResultDto.Item.builder().userId(2L).status(BulkRoleResultDto.Status.NOT_FOUND).build()))
+                .build();
+
+        when(userService.updateRoles(any(BulkRoleRequest.class))).thenReturn(result);
+
+        // Act & Assert
+        mockMvc.perform(post("/admin/users/roles")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"action\":\"GRANT\",\"role\":\"ROLE_ADMIN\",\"userIds\":[1,2]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("UPDATED"))
+                .andExpect(jsonPath("$.results[1].status").value("NOT_FOUND"));
     }
 
     @Test
@@ -109,4 +179,13 @@ public class AdminControllerTest {
                 .andExpect(jsonPath("$.roles.length()").value(1))
                 .andExpect(jsonPath("$.roles[0]").value("ROLE_USER"));
     }
-}
+
+    @Test
+    public void testUnlockUser() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put("/admin/users/1/unlock"))
+                .andExpect(status().isNoContent());
+
+        verify(userService).unlockUser(1L);
+    }
+}
\ No newline at end of file
@@ -4,8 +4,11 @@ import com.duc.oauth2jwt.controller.AuthController;
 import com.duc.oauth2jwt.dto.AuthRequest;
 import com.duc.oauth2jwt.dto.AuthResponse;
 import com.duc.oauth2jwt.dto.RegisterRequest;
+import com.duc.oauth2jwt.exception.TooManyRequestsException;
+import com.duc.oauth2jwt.service.AuthRateLimiter;
 import com.duc.oauth2jwt.service.AuthService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.catalina.filters.RemoteIpFilter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,11 +17,16 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -31,6 +39,9 @@ public class AuthControllerTest {
     @Mock
     private AuthService authService;
 
+    @Mock
+    private AuthRateLimiter rateLimiter;
+
     @InjectMocks
     private AuthController authController;
 
@@ -69,6 +80,59 @@ public class AuthControllerTest {
                 .andExpect(jsonPath("$.tokenType").value("Bearer"));
     }
 
+    @Test
+    public void testLoginRateLimitedByForwardedClientIpFromTrustedProxy() throws Exception {
+        // Arrange
+        MockMvc proxiedMockMvc = MockMvcBuilders
+                .standaloneSetup(authController)
+                .addFilters(remoteIpFilter("10\\.0\\.\\d+\\.\\d+"))
+                .build();
+        when(authService.login(any(AuthRequest.class))).thenReturn(new AuthResponse());
+
+        // Act
+        proxiedMockMvc.perform(loginFrom("10.0.0.5", "203.0.113.7"))
+                .andExpect(status().isOk());
+
+        // Assert
+        verify(rateLimiter).check(AuthRateLimiter.Endpoint.LOGIN, "203.0.113.7", "test@example.com");
+    }
+
+    @Test
+    public void testLoginRateLimitedByConnectionIpFromUntrustedProxy() throws Exception {
+        // Arrange
+        MockMvc proxiedMockMvc = MockMvcBuilders
+                .standaloneSetup(authController)
+                .addFilters(remoteIpFilter("10\\.0\\.\\d+\\.\\d+"))
+                .build();
+        when(authService.login(any(AuthRequest.class))).thenReturn(new AuthResponse());
+
+        // Act
+        proxiedMockMvc.perform(loginFrom("198.51.100.9", "203.0.113.7"))
+                .andExpect(status().isOk());
+
+        // Assert
+        verify(rateLimiter).check(AuthRateLimiter.Endpoint.LOGIN, "198.51.100.9", "test@example.com");
+    }
+
+    @Test
+    public void testLoginRateLimited() throws Exception {
+        // Arrange
+        AuthRequest loginRequest = new AuthRequest();
+        loginRequest.setEmail("test@example.com");
+        loginRequest.setPassword("password123");
+
+        doThrow(new TooManyRequestsException("Too many requests, try again later", 6))
+                .when(rateLimiter).check(eq(AuthRateLimiter.Endpoint.LOGIN), anyString(), eq("test@example.com"));
+
+        // Act & Assert
+        mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isTooManyRequests());
+
+        verify(authService, never()).login(any(AuthRequest.class));
+    }
+
     @Test
     public void testRegister() throws Exception {
         // Arrange
@@ -118,11 +182,37 @@ public class AuthControllerTest {
     @Test
     public void testLogout() throws Exception {
         // Arrange
-        doNothing().when(authService).logout(anyString());
+        doNothing().when(authService).logout(anyString(), anyString());
 
         // Act & Assert
         mockMvc.perform(post("/auth/logout")
-                        .param("refreshToken", "token-to-invalidate"))
+                        .param("refreshToken", "token-to-invalidate")
+                        .header("Authorization", "Bearer access-token"))
                 .andExpect(status().isOk());
+
+        verify(authService).logout("token-to-invalidate", "access-token");
+    }
+
+    // Same settings Spring Boot applies to Tomcat's RemoteIpValve from server.tomcat.remoteip.*
+    private static RemoteIpFilter remoteIpFilter(String internalProxies) {
+        RemoteIpFilter filter = new RemoteIpFilter();
+        filter.setRemoteIpHeader("X-Forwarded-For");
+        filter.setProtocolHeader("X-Forwarded-Proto");
+        filter.setInternalProxies(internalProxies);
+        return filter;
+    }
+
+    private MockHttpServletRequestBuilder loginFrom(String remoteAddr, String forwardedFor) throws Exception {
+        AuthRequest loginRequest = new AuthRequest();
+        loginRequest.setEmail("test@example.com");
+        loginRequest.setPassword("password123");
+        return post("/auth/login")
+                .with(request -> {
+                    request.setRemoteAddr(remoteAddr);
+                    return request;
+                })
+                .header("X-Forwarded-For", forwardedFor)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginRequest));
     }
 }
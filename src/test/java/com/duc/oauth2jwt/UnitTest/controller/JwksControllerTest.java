@@ -0,0 +1,55 @@
+package com.duc.oauth2jwt.UnitTest.controller;
+
+import com.duc.oauth2jwt.controller.JwksController;
+import com.duc.oauth2jwt.security.JwtKeyRing;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JwksControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private JwtKeyRing keyRing;
+
+    @BeforeEach
+    public void setup() {
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new JwksController(keyRing, Duration.ofMinutes(5)))
+                .build();
+        when(keyRing.jwks()).thenReturn(new JwtKeyRing.Jwks(
+                Map.of("keys", List.of(Map.of("kid", "key-1", "kty", "RSA"))), "\"abc\""));
+    }
+
+    @Test
+    public void testGetJwks() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=300, public"))
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(jsonPath("$.keys[0].kid").value("key-1"));
+    }
+
+    @Test
+    public void testGetJwks_NotModified() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/.well-known/jwks.json").header("If-None-Match", "\"abc\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+}
@@ -1,6 +1,7 @@
 package com.duc.oauth2jwt.UnitTest.controller;
 
 import com.duc.oauth2jwt.controller.UserController;
+import com.duc.oauth2jwt.dto.SessionDto;
 import com.duc.oauth2jwt.dto.UserDto;
 import com.duc.oauth2jwt.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,12 +14,17 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -80,4 +86,38 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.name").value("User Two"))
                 .andExpect(jsonPath("$.roles[0]").value("ROLE_USER"));
     }
+
+    @Test
+    public void testGetCurrentUserSessions() throws Exception {
+        // Arrange
+        SessionDto session = SessionDto.builder()
+                .id("session-hash")
+                .expiresAt(Instant.parse("2030-01-01T00:00:00Z"))
+                .build();
+
+        when(userService.getCurrentUserSessions()).thenReturn(List.of(session));
+
+        // Act & Assert
+        mockMvc.perform(get("/user/sessions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value("session-hash"));
+    }
+
+    @Test
+    public void testRevokeCurrentUserSessions() throws Exception {
+        // Act & Assert
+        mockMvc.perform(delete("/user/sessions"))
+                .andExpect(status().isNoContent());
+
+        verify(userService).revokeCurrentUserSessions();
+    }
+
+    @Test
+    public void testLogoutEverywhere() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/user/logout-all"))
+                .andExpect(status().isNoContent());
+
+        verify(userService).logoutEverywhere();
+    }
 }
@@ -0,0 +1,204 @@
+package com.duc.oauth2jwt.UnitTest.repository;
+
+import com.duc.oauth2jwt.model.RefreshToken;
+import com.duc.oauth2jwt.repository.RefreshTokenStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// Every key a script touches is passed in KEYS, and all keys of a user share the {userId} hash tag
+@ExtendWith(MockitoExtension.class)
+public class RefreshTokenStoreTest {
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+    @InjectMocks
+    private RefreshTokenStore refreshTokenStore;
+
+    private final String token = "7.3f0c2a9e-1b4d-4c6e-9a8f-2d7b5e1c0a93";
+    private final String hash = RefreshTokenStore.hash(token);
+    private final String tokenKey = "refresh_token:{7}:" + hash;
+    private final String sessionsKey = "refresh_token:sessions:{7}";
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+    }
+
+    @Test
+    void newTokenValue_StartsWithUserId() {
+        // Act & Assert
+        assertTrue(RefreshTokenStore.newTokenValue(7L).startsWith("7."));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void save_PassesTaggedTokenAndSessionsKeys() {
+        // Arrange
+        RefreshToken refreshToken = RefreshToken.builder()
+                .token(token)
+                .userId(7L)
+                .userEmail("user@example.com")
+                .expiryDate(Instant.now().plusSeconds(3600))
+                .build();
+
+        // Act
+        RefreshToken saved = refreshTokenStore.save(refreshToken);
+
+        // Assert
+        assertEquals(hash, saved.getId());
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(tokenKey, sessionsKey)),
+                eq("7"), eq("user@example.com"), anyString(), anyString(), eq(hash));
+        verifyNoInteractions(valueOperations);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void save_MigratedTokenWithoutUserId_RecordsOwner() {
+        // Arrange
+        String legacyToken = "3f0c2a9e-1b4d-4c6e-9a8f-2d7b5e1c0a93";
+        String legacyHash = RefreshTokenStore.hash(legacyToken);
+        RefreshToken refreshToken = RefreshToken.builder()
+                .token(legacyToken)
+                .userId(7L)
+                .userEmail("user@example.com")
+                .expiryDate(Instant.now().plusSeconds(3600))
+                .build();
+
+        // Act
+        refreshTokenStore.save(refreshToken);
+
+        // Assert
+        verify(valueOperations).set(eq("refresh_token:owner:" + legacyHash), eq("7"), any(Duration.class));
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of("refresh_token:{7}:" + legacyHash, sessionsKey)),
+                eq("7"), eq("user@example.com"), anyString(), anyString(), eq(legacyHash));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deleteByToken_PassesTokenAndSessionsKeys() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of(tokenKey, sessionsKey)), eq(hash)))
+                .thenReturn(1L);
+
+        // Act & Assert
+        assertTrue(refreshTokenStore.deleteByToken(token));
+        verifyNoInteractions(valueOperations);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deleteByToken_MigratedToken_ResolvesOwnerFirst() {
+        // Arrange
+        String legacyToken = "3f0c2a9e-1b4d-4c6e-9a8f-2d7b5e1c0a93";
+        String legacyHash = RefreshTokenStore.hash(legacyToken);
+        when(valueOperations.get("refresh_token:owner:" + legacyHash)).thenReturn("7");
+        when(redisTemplate.execute(any(RedisScript.class),
+                eq(List.of("refresh_token:{7}:" + legacyHash, sessionsKey)), eq(legacyHash))).thenReturn(1L);
+
+        // Act & Assert
+        assertTrue(refreshTokenStore.deleteByToken(legacyToken));
+    }
+
+    @Test
+    void deleteByToken_UnknownOwner_SkipsScript() {
+        // Arrange
+        when(valueOperations.get(anyString())).thenReturn(null);
+
+        // Act & Assert
+        assertFalse(refreshTokenStore.deleteByToken("3f0c2a9e-1b4d-4c6e-9a8f-2d7b5e1c0a93"));
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rotate_PassesOldNewAndSessionsKeys() {
+        // Arrange
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        when(redisTemplate.execute(any(RedisScript.class), keys.capture(), any(), any(), any(), any()))
+                .thenReturn(List.of(1L, "7", "user@example.com"));
+
+        // Act
+        RefreshTokenStore.Rotation rotation = refreshTokenStore.rotate(token, Instant.now().plusSeconds(3600));
+
+        // Assert
+        assertEquals(RefreshTokenStore.RotationStatus.ROTATED, rotation.status());
+        String newToken = rotation.refreshToken().getToken();
+        assertTrue(newToken.startsWith("7."));
+        assertEquals(List.of(tokenKey, "refresh_token:{7}:" + RefreshTokenStore.hash(newToken), sessionsKey),
+                keys.getValue());
+        assertEquals(7L, rotation.refreshToken().getUserId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deleteByUserId_PassesEveryTokenKeyAndRepeatsForNewMembers() {
+        // Arrange
+        when(zSetOperations.range(sessionsKey, 0, -1))
+                .thenReturn(new LinkedHashSet<>(List.of("a", "b")), Set.of("c"), Set.of());
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(2L, 1L);
+
+        // Act
+        long deleted = refreshTokenStore.deleteByUserId(7L);
+
+        // Assert
+        assertEquals(3, deleted);
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of(sessionsKey, "refresh_token:{7}:a", "refresh_token:{7}:b")), eq("a"), eq("b"));
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of(sessionsKey, "refresh_token:{7}:c")), eq("c"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findSessionsByUserId_PassesMemberTokenKeys() {
+        // Arrange
+        when(zSetOperations.range(sessionsKey, 0, -1)).thenReturn(new LinkedHashSet<>(List.of("a")));
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of(sessionsKey, "refresh_token:{7}:a")),
+                anyString(), eq("a"))).thenReturn(List.of("a", "1733011200000", "1732406400000"));
+
+        // Act
+        List<RefreshToken> sessions = refreshTokenStore.findSessionsByUserId(7L);
+
+        // Assert
+        assertEquals(1, sessions.size());
+        assertEquals("a", sessions.get(0).getId());
+        assertEquals(Instant.ofEpochMilli(1733011200000L), sessions.get(0).getExpiryDate());
+    }
+
+    @Test
+    void findSessionsByUserId_NoMembers_SkipsScript() {
+        // Arrange
+        when(zSetOperations.range(sessionsKey, 0, -1)).thenReturn(Set.of());
+
+        // Act & Assert
+        assertTrue(refreshTokenStore.findSessionsByUserId(7L).isEmpty());
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+}
@@ -1,9 +1,7 @@
 package com.duc.oauth2jwt.UnitTest.repository;
 
-import com.duc.oauth2jwt.model.RefreshToken;
 import com.duc.oauth2jwt.model.Role;
 import com.duc.oauth2jwt.model.User;
-import com.duc.oauth2jwt.repository.RefreshTokenRepository;
 import com.duc.oauth2jwt.repository.RoleRepository;
 import com.duc.oauth2jwt.repository.UserRepository;
 import org.junit.jupiter.api.Test;
@@ -11,7 +9,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
-import java.time.Instant;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
@@ -30,9 +27,6 @@ public class RepositoryTests {
     @Autowired
     private RoleRepository roleRepository;
 
-    @Autowired
-    private RefreshTokenRepository refreshTokenRepository;
-
     @Test
     public void testFindUserByEmail() {
         // Arrange
@@ -114,88 +108,4 @@ public class RepositoryTests {
         assertThat(found).isPresent();
         assertThat(found.get().getName()).isEqualTo(Role.RoleName.ROLE_ADMIN);
     }
-
-    @Test
-    public void testFindRefreshTokenByToken() {
-        // Arrange
-        User user = User.builder()
-                .email("token@example.com")
-                .name("Token User")
-                .password("password")
-                .provider(User.AuthProvider.LOCAL)
-                .build();
-        entityManager.persist(user);
-
-        RefreshToken refreshToken = RefreshToken.builder()
-                .token("test-token-value")
-                .user(user)
-                .expiryDate(Instant.now().plusSeconds(86400))
-                .build();
-        entityManager.persist(refreshToken);
-        entityManager.flush();
-
-        // Act
-        Optional<RefreshToken> found = refreshTokenRepository.findByToken("test-token-value");
-
-        // Assert
-        assertThat(found).isPresent();
-        assertThat(found.get().getToken()).isEqualTo("test-token-value");
-        assertThat(found.get().getUser().getEmail()).isEqualTo("token@example.com");
-    }
-
-    @Test
-    public void testFindRefreshTokenByUser() {
-        // Arrange
-        User user = User.builder()
-                .email("user-token@example.com")
-                .name("User Token")
-                .password("password")
-                .provider(User.AuthProvider.LOCAL)
-                .build();
-        entityManager.persist(user);
-
-        RefreshToken refreshToken = RefreshToken.builder()
-                .token("user-associated-token")
-                .user(user)
-                .expiryDate(Instant.now().plusSeconds(86400))
-                .build();
-        entityManager.persist(refreshToken);
-        entityManager.flush();
-
-        // Act
-        Optional<RefreshToken> found = refreshTokenRepository.findByUser(user);
-
-        // Assert
-        assertThat(found).isPresent();
-        assertThat(found.get().getToken()).isEqualTo("user-associated-token");
-    }
-
-    @Test
-    public void testDeleteRefreshTokenByUser() {
-        // Arrange
-        User user = User.builder()
-                .email("delete-token@example.com")
-                .name("Delete Token User")
-                .password("password")
-                .provider(User.AuthProvider.LOCAL)
-                .build();
-        entityManager.persist(user);
-
-        RefreshToken refreshToken = RefreshToken.builder()
-                .token("delete-this-token")
-                .user(user)
-                .expiryDate(Instant.now().plusSeconds(86400))
-                .build();
-        entityManager.persist(refreshToken);
-        entityManager.flush();
-
-        // Act
-        refreshTokenRepository.deleteByUser(user);
-        entityManager.flush();
-        entityManager.clear();
-
-        // Assert
-        Optional<RefreshToken> found = refreshTokenRepository.findByToken("delete-this-token");
-        assertThat(found).isEmpty();
-    }
 }
@@ -0,0 +1,226 @@
+package com.duc.oauth2jwt.UnitTest.repository;
+
+import com.duc.oauth2jwt.model.Role;
+import com.duc.oauth2jwt.model.User;
+import com.duc.oauth2jwt.repository.UserRepository;
+import com.duc.oauth2jwt.repository.UserRoleMembership;
+import com.duc.oauth2jwt.repository.UserRoleRow;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// H2 rejects the negative fetch size MySQL uses for row streaming
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.admin.users.export-fetch-size=500"
+})
+public class UserRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Role userRole;
+    private Role adminRole;
+
+    @BeforeEach
+    void setUp() {
+        userRole = entityManager.persist(Role.builder().name(Role.RoleName.ROLE_USER).build());
+        adminRole = entityManager.persist(Role.builder().name(Role.RoleName.ROLE_ADMIN).build());
+    }
+
+    @Test
+    void findIdPageAfter_SeeksPastCursorInIdOrder() {
+        // Arrange
+        List<User> users = List.of(
+                persistUser("a@example.com", User.AuthProvider.LOCAL, userRole),
+                persistUser("b@example.com", User.AuthProvider.GOOGLE, userRole),
+                persistUser("c@example.com", User.AuthProvider.LOCAL, userRole, adminRole));
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        List<Long> firstPage = userRepository.findIdPageAfter(0L, null, null, PageRequest.of(0, 2));
+        List<Long> secondPage = userRepository.findIdPageAfter(firstPage.get(1), null, null, PageRequest.of(0, 2));
+
+        // Assert
+        assertThat(firstPage).containsExactly(users.get(0).getId(), users.get(1).getId());
+        assertThat(secondPage).containsExactly(users.get(2).getId());
+    }
+
+    @Test
+    void findIdPageAfter_FiltersByRoleAndProvider() {
+        // Arrange
+        persistUser("a@example.com", User.AuthProvider.LOCAL, userRole);
+        User googleAdmin = persistUser("b@example.com", User.AuthProvider.GOOGLE, userRole, adminRole);
+        User localAdmin = persistUser("c@example.com", User.AuthProvider.LOCAL, userRole, adminRole);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        List<Long> admins = userRepository.findIdPageAfter(0L, Role.RoleName.ROLE_ADMIN, null, PageRequest.of(0, 10));
+        List<Long> localAdmins = userRepository.findIdPageAfter(0L, Role.RoleName.ROLE_ADMIN, User.AuthProvider.LOCAL,
+                PageRequest.of(0, 10));
+
+        // Assert
+        assertThat(admins).containsExactly(googleAdmin.getId(), localAdmin.getId());
+        assertThat(localAdmins).containsExactly(localAdmin.getId());
+    }
+
+    @Test
+    void userPage_StatementCountDoesNotGrowWithUsers() {
+        // Arrange
+        persistUsers(0, 3);
+        long smallPageStatements = countStatementsForPage();
+        persistUsers(3, 40);
+
+        // Act
+        long largePageStatements = countStatementsForPage();
+
+        // Assert
+        assertThat(smallPageStatements).isEqualTo(2);
+        assertThat(largePageStatements).isEqualTo(smallPageStatements);
+    }
+
+    @Test
+    void findByEmail_LoadsRolesInSameStatement() {
+        // Arrange
+        persistUser("a@example.com", User.AuthProvider.LOCAL, userRole, adminRole);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = statistics();
+
+        // Act
+        User user = userRepository.findByEmail("a@example.com").orElseThrow();
+
+        // Assert
+        assertThat(user.getRoles()).hasSize(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void streamAllWithRoleNames_ReturnsOneRowPerRoleOrderedById() {
+        // Arrange
+        User first = persistUser("a@example.com", User.AuthProvider.LOCAL, userRole, adminRole);
+        User second = persistUser("b@example.com", User.AuthProvider.GOOGLE);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        List<UserRoleRow> rows;
+        try (Stream<UserRoleRow> stream = userRepository.streamAllWithRoleNames()) {
+            rows = stream.toList();
+        }
+
+        // Assert
+        assertThat(rows).extracting(UserRoleRow::getId).containsExactly(first.getId(), first.getId(), second.getId());
+        assertThat(rows.subList(0, 2)).extracting(UserRoleRow::getRoleName)
+                .containsExactlyInAnyOrder(Role.RoleName.ROLE_USER, Role.RoleName.ROLE_ADMIN);
+        assertThat(rows.get(2).getRoleName()).isNull();
+        assertThat(rows.get(2).getEmail()).isEqualTo("b@example.com");
+    }
+
+    @Test
+    void findRowsByEmail_SelectsProfileColumnsWithOneRowPerRole() {
+        // Arrange
+        User user = persistUser("a@example.com", User.AuthProvider.LOCAL, userRole, adminRole);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = statistics();
+
+        // Act
+        List<UserRoleRow> byEmail = userRepository.findRowsByEmail("a@example.com");
+        List<UserRoleRow> byId = userRepository.findRowsById(user.getId());
+
+        // Assert
+        assertThat(byEmail).hasSize(2);
+        assertThat(byEmail).extracting(UserRoleRow::getRoleName)
+                .containsExactlyInAnyOrder(Role.RoleName.ROLE_USER, Role.RoleName.ROLE_ADMIN);
+        assertThat(byId).extracting(UserRoleRow::getEmail).containsOnly("a@example.com");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(userRepository.findRowsById(-1L)).isEmpty();
+    }
+
+    @Test
+    void bulkRoleStatements_WriteJoinTableWithoutLoadingUsers() {
+        // Arrange
+        User plain = persistUser("a@example.com", User.AuthProvider.LOCAL, userRole);
+        User admin = persistUser("b@example.com", User.AuthProvider.LOCAL, userRole, adminRole);
+        List<Long> ids = List.of(plain.getId(), admin.getId(), -1L);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = statistics();
+
+        // Act
+        List<UserRoleMembership> memberships = userRepository.findRoleMembershipByIdIn(ids, adminRole.getId());
+        int granted = userRepository.insertRole(ids, adminRole.getId());
+        int revoked = userRepository.deleteRole(List.of(admin.getId()), adminRole.getId());
+
+        // Assert
+        assertThat(memberships).extracting(UserRoleMembership::getId, UserRoleMembership::getMember)
+                .containsExactlyInAnyOrder(
+                        tuple(plain.getId(), false),
+                        tuple(admin.getId(), true));
+        assertThat(granted).isEqualTo(1);
+        assertThat(revoked).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(userRepository.findRowsById(plain.getId())).extracting(UserRoleRow::getRoleName)
+                .containsExactlyInAnyOrder(Role.RoleName.ROLE_USER, Role.RoleName.ROLE_ADMIN);
+        assertThat(userRepository.findRowsById(admin.getId())).extracting(UserRoleRow::getRoleName)
+                .containsExactly(Role.RoleName.ROLE_USER);
+    }
+
+    // Runs the two queries UserService.getUsers issues for one page and touches every role set
+    private long countStatementsForPage() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = statistics();
+
+        List<Long> ids = userRepository.findIdPageAfter(0L, null, null, PageRequest.of(0, 200));
+        List<User> users = userRepository.findAllWithRolesByIdIn(ids);
+        users.forEach(user -> assertThat(user.getRoles()).isNotEmpty());
+
+        assertThat(users).hasSize(ids.size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private void persistUsers(int from, int to) {
+        for (int i = from; i < to; i++) {
+            persistUser("user" + i + "@example.com", User.AuthProvider.LOCAL, userRole, adminRole);
+        }
+    }
+
+    private User persistUser(String email, User.AuthProvider provider, Role... roles) {
+        User user = new User();
+        user.setEmail(email);
+        user.setName(email);
+        user.setPassword("password");
+        user.setProvider(provider);
+        user.setRoles(new HashSet<>(Set.of(roles)));
+        return entityManager.persist(user);
+    }
+}
@@ -0,0 +1,218 @@
+package com.duc.oauth2jwt.UnitTest.security;
+
+import com.duc.oauth2jwt.model.Role;
+import com.duc.oauth2jwt.model.User;
+import com.duc.oauth2jwt.security.CustomUserDetailsService;
+import com.duc.oauth2jwt.security.JwtAuthenticationFilter;
+import com.duc.oauth2jwt.security.JwtClaims;
+import com.duc.oauth2jwt.security.JwtTokenProvider;
+import com.duc.oauth2jwt.security.JwtVerificationResult;
+import com.duc.oauth2jwt.security.UserDetailsCache;
+import com.duc.oauth2jwt.security.UserPrincipal;
+import com.duc.oauth2jwt.service.AccessTokenDenylist;
+import com.duc.oauth2jwt.service.TokenVersionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JwtAuthenticationFilterTest {
+    @Mock
+    private JwtTokenProvider tokenProvider;
+    @Mock
+    private CustomUserDetailsService customUserDetailsService;
+    @Mock
+    private FilterChain filterChain;
+    @Mock
+    private AccessTokenDenylist accessTokenDenylist;
+    @Mock
+    private TokenVersionService tokenVersionService;
+
+    private UserDetailsCache userDetailsCache;
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        userDetailsCache = new UserDetailsCache(true, 100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        jwtAuthenticationFilter = new JwtAuthenticationFilter(tokenProvider, customUserDetailsService, userDetailsCache,
+                accessTokenDenylist, tokenVersionService);
+        // Every token is current unless a test says otherwise
+        lenient().when(tokenVersionService.isCurrent(any(), any())).thenReturn(true);
+
+        Role userRole = new Role();
+        userRole.setId(1L);
+        userRole.setName(Role.RoleName.ROLE_USER);
+
+        testUser = new User();
+        testUser.setId(1L);
+        testUser.setEmail("test@example.com");
+        testUser.setRoles(Collections.singleton(userRole));
+    }
+
+    @Test
+    void doFilter_RepeatedRequests_LoadUserOnceThroughCache() throws Exception {
+        // Arrange
+        when(tokenProvider.verify("valid-token")).thenReturn(JwtVerificationResult.success(
+                JwtClaims.builder().subject("test@example.com").build()));
+        when(customUserDetailsService.loadUserByUsername("test@example.com")).thenReturn(testUser);
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.addHeader("Authorization", "Bearer valid-token");
+            jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+            SecurityContextHolder.clearContext();
+        }
+
+        // Assert
+        verify(customUserDetailsService, times(1)).loadUserByUsername("test@example.com");
+        assertEquals(2, userDetailsCache.stats().hitCount());
+        assertEquals(1, userDetailsCache.stats().missCount());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_ValidToken_VerifiesOnceAndAuthenticates() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer valid-token");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(tokenProvider.verify("valid-token")).thenReturn(JwtVerificationResult.success(
+                JwtClaims.builder().subject("test@example.com").build()));
+        when(customUserDetailsService.loadUserByUsername("test@example.com")).thenReturn(testUser);
+
+        // Act
+        jwtAuthenticationFilter.doFilter(request, response, filterChain);
+
+        // Assert
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals("test@example.com", authentication.getName());
+        assertTrue(authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_USER")));
+
+        verify(tokenProvider, times(1)).verify("valid-token");
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilter_StatelessMode_BuildsPrincipalFromClaims() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer stateless-token");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(tokenProvider.verify("stateless-token")).thenReturn(JwtVerificationResult.success(
+                JwtClaims.builder()
+                        .subject("test@example.com")
+                        .userId(1L)
+                        .roles(List.of("ROLE_USER", "ROLE_ADMIN"))
+                        .build()));
+        when(tokenProvider.isStatelessAuthentication()).thenReturn(true);
+
+        // Act
+        jwtAuthenticationFilter.doFilter(request, response, filterChain);
+
+        // Assert
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals("test@example.com", authentication.getName());
+        assertEquals(1L, ((UserPrincipal) authentication.getPrincipal()).getId());
+        assertEquals(2, authentication.getAuthorities().size());
+        verifyNoInteractions(customUserDetailsService);
+    }
+
+    @Test
+    void doFilter_InvalidToken_LeavesContextEmpty() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer expired-token");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(tokenProvider.verify("expired-token"))
+                .thenReturn(JwtVerificationResult.failure(JwtVerificationResult.Failure.EXPIRED));
+
+        // Act
+        jwtAuthenticationFilter.doFilter(request, response, filterChain);
+
+        // Assert
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(customUserDetailsService);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilter_RevokedToken_LeavesContextEmpty() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer revoked-token");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(tokenProvider.verify("revoked-token")).thenReturn(JwtVerificationResult.success(
+                JwtClaims.builder().tokenId("jti-1").subject("test@example.com").build()));
+        when(accessTokenDenylist.isRevoked("jti-1")).thenReturn(true);
+
+        // Act
+        jwtAuthenticationFilter.doFilter(request, response, filterChain);
+
+        // Assert
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(customUserDetailsService);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilter_OutdatedTokenVersion_LeavesContextEmpty() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer old-token");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(tokenProvider.verify("old-token")).thenReturn(JwtVerificationResult.success(
+                JwtClaims.builder().subject("test@example.com").tokenVersion(1L).build()));
+        when(tokenVersionService.isCurrent("test@example.com", 1L)).thenReturn(false);
+
+        // Act
+        jwtAuthenticationFilter.doFilter(request, response, filterChain);
+
+        // Assert
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(customUserDetailsService);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilter_NoToken_SkipsVerification() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        jwtAuthenticationFilter.doFilter(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(tokenProvider, customUserDetailsService);
+        verify(filterChain).doFilter(request, response);
+    }
+}
@@ -0,0 +1,228 @@
+package com.duc.oauth2jwt.UnitTest.security;
+
+import com.duc.oauth2jwt.security.JwtKeyRing;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class JwtKeyRingTest {
+
+    private static final String KEYS_KEY = "jwt:signing-keys";
+    private static final String ENCRYPTION_KEY = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=";
+
+    @Test
+    void init_PublishesFirstKeyActiveImmediately() {
+        // Arrange
+        Map<Object, Object> store = new ConcurrentHashMap<>();
+        JwtKeyRing keyRing = newKeyRing(SignatureAlgorithm.RS256, Duration.ofDays(7), Duration.ofMinutes(10), 3600000L, store);
+
+        // Act
+        keyRing.init();
+
+        // Assert
+        JwtKeyRing.SigningKey signingKey = keyRing.signingKey();
+        assertEquals(1, store.size());
+        assertTrue(store.containsKey(signingKey.kid()));
+        assertFalse(signingKey.activatesAt().isAfter(Instant.now()));
+        assertSame(signingKey, keyRing.verificationKey(signingKey.kid()));
+
+        List<?> jwks = (List<?>) keyRing.jwks().body().get("keys");
+        Map<?, ?> jwk = (Map<?, ?>) jwks.get(0);
+        assertEquals(signingKey.kid(), jwk.get("kid"));
+        assertEquals("RSA", jwk.get("kty"));
+        assertEquals("RS256", jwk.get("alg"));
+        assertEquals("AQAB", jwk.get("e"));
+    }
+
+    @Test
+    void refresh_PublishesNextKeyAheadOfUse() {
+        // Arrange
+        Map<Object, Object> store = new ConcurrentHashMap<>();
+        JwtKeyRing keyRing = newKeyRing(SignatureAlgorithm.ES256, Duration.ZERO, Duration.ofHours(1), 3600000L, store);
+        keyRing.init();
+        JwtKeyRing.SigningKey first = keyRing.signingKey();
+        String firstEtag = keyRing.jwks().etag();
+
+        // Act
+        keyRing.refresh();
+
+        // Assert
+        assertEquals(2, store.size());
+        assertSame(first, keyRing.signingKey());
+        assertEquals(2, ((List<?>) keyRing.jwks().body().get("keys")).size());
+        assertNotEquals(firstEtag, keyRing.jwks().etag());
+        String nextKid = store.keySet().stream().map(String::valueOf).filter(kid -> !kid.equals(first.kid()))
+                .findFirst().orElseThrow();
+        assertTrue(keyRing.verificationKey(nextKid).activatesAt().isAfter(Instant.now()));
+    }
+
+    @Test
+    void refresh_RetiresKeyOnceSuccessorOutlivedTokenLifetime() {
+        // Arrange
+        Map<Object, Object> store = new ConcurrentHashMap<>();
+        JwtKeyRing keyRing = newKeyRing(SignatureAlgorithm.RS256, Duration.ZERO, Duration.ZERO, -1000L, store);
+        keyRing.init();
+        String first = keyRing.signingKey().kid();
+        keyRing.refresh();
+
+        // Act
+        keyRing.refresh();
+
+        // Assert
+        assertNull(keyRing.verificationKey(first));
+        assertFalse(store.containsKey(first));
+        assertNotEquals(first, keyRing.signingKey().kid());
+    }
+
+    @Test
+    void init_HmacAlgorithm_DoesNotTouchRedis() {
+        // Arrange
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        JwtKeyRing keyRing = new JwtKeyRing(redisTemplate, SignatureAlgorithm.HS512, Duration.ofDays(7),
+                Duration.ofMinutes(10), 3600000L, "", Duration.ofSeconds(30));
+
+        // Act
+        keyRing.init();
+        keyRing.refresh();
+
+        // Assert
+        assertFalse(keyRing.isEnabled());
+        assertEquals(List.of(), keyRing.jwks().body().get("keys"));
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void init_StoresOnlyEncryptedPrivateKeyReadableWithSameEncryptionKey() {
+        // Arrange
+        Map<Object, Object> store = new ConcurrentHashMap<>();
+        JwtKeyRing keyRing = newKeyRing(SignatureAlgorithm.ES256, Duration.ofDays(7), Duration.ofMinutes(10), 3600000L, store);
+        JwtKeyRing otherNode = newKeyRing(SignatureAlgorithm.ES256, Duration.ofDays(7), Duration.ofMinutes(10), 3600000L, store);
+
+        // Act
+        keyRing.init();
+        otherNode.init();
+
+        // Assert
+        JwtKeyRing.SigningKey signingKey = keyRing.signingKey();
+        String[] stored = String.valueOf(store.get(signingKey.kid())).split(";");
+        assertNotEquals(Base64.getEncoder().encodeToString(signingKey.privateKey().getEncoded()), stored[2]);
+        assertEquals(Base64.getEncoder().encodeToString(signingKey.publicKey().getEncoded()), stored[3]);
+        assertEquals(signingKey.privateKey(), otherNode.verificationKey(signingKey.kid()).privateKey());
+    }
+
+    @Test
+    void init_WrongEncryptionKey_FailsToReadStoredKeys() {
+        // Arrange
+        Map<Object, Object> store = new ConcurrentHashMap<>();
+        newKeyRing(SignatureAlgorithm.RS256, Duration.ofDays(7), Duration.ofMinutes(10), 3600000L, store).init();
+        JwtKeyRing otherNode = newKeyRing(SignatureAlgorithm.RS256, Duration.ofDays(7), Duration.ofMinutes(10), 3600000L,
+                store, "ZmVkY2JhOTg3NjU0MzIxMGZlZGNiYTk4NzY1NDMyMTA=");
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, otherNode::init);
+    }
+
+    @Test
+    void init_AsymmetricAlgorithmWithoutEncryptionKey_Fails() {
+        // Arrange
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        JwtKeyRing keyRing = new JwtKeyRing(redisTemplate, SignatureAlgorithm.RS256, Duration.ofDays(7),
+                Duration.ofMinutes(10), 3600000L, "", Duration.ofSeconds(30));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, keyRing::init);
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void init_LosingRotationLockOnColdStart_WaitsForLockHolderKey() throws Exception {
+        // Arrange
+        Map<Object, Object> store = new ConcurrentHashMap<>();
+        JwtKeyRing lockHolder = newKeyRing(SignatureAlgorithm.RS256, Duration.ofDays(7), Duration.ofMinutes(10),
+                3600000L, store, ENCRYPTION_KEY, true, Duration.ofSeconds(30));
+        JwtKeyRing otherNode = newKeyRing(SignatureAlgorithm.RS256, Duration.ofDays(7), Duration.ofMinutes(10),
+                3600000L, store, ENCRYPTION_KEY, false, Duration.ofSeconds(5));
+        // The lock holder publishes only after the other node has found the hash empty and lost the lock
+        CompletableFuture<Void> publishing = CompletableFuture.runAsync(() -> {
+            sleep(300);
+            lockHolder.init();
+        });
+
+        // Act
+        otherNode.init();
+
+        // Assert
+        publishing.get(5, TimeUnit.SECONDS);
+        assertEquals(1, store.size());
+        assertEquals(lockHolder.signingKey().kid(), otherNode.signingKey().kid());
+    }
+
+    @Test
+    void init_NoKeyPublishedWithinStartupWait_Fails() {
+        // Arrange
+        Map<Object, Object> store = new ConcurrentHashMap<>();
+        JwtKeyRing keyRing = newKeyRing(SignatureAlgorithm.ES256, Duration.ofDays(7), Duration.ofMinutes(10),
+                3600000L, store, ENCRYPTION_KEY, false, Duration.ofMillis(300));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, keyRing::init);
+        assertTrue(store.isEmpty());
+    }
+
+    static JwtKeyRing newKeyRing(SignatureAlgorithm algorithm, Duration rotationInterval, Duration publishAhead,
+                                 long accessTokenExpirationMs, Map<Object, Object> store) {
+        return newKeyRing(algorithm, rotationInterval, publishAhead, accessTokenExpirationMs, store, ENCRYPTION_KEY);
+    }
+
+    static JwtKeyRing newKeyRing(SignatureAlgorithm algorithm, Duration rotationInterval, Duration publishAhead,
+                                 long accessTokenExpirationMs, Map<Object, Object> store, String encryptionKey) {
+        return newKeyRing(algorithm, rotationInterval, publishAhead, accessTokenExpirationMs, store, encryptionKey,
+                true, Duration.ofSeconds(30));
+    }
+
+    // Key ring backed by an in-memory map standing in for the shared Redis hash
+    @SuppressWarnings("unchecked")
+    static JwtKeyRing newKeyRing(SignatureAlgorithm algorithm, Duration rotationInterval, Duration publishAhead,
+                                 long accessTokenExpirationMs, Map<Object, Object> store, String encryptionKey,
+                                 boolean winsRotationLock, Duration startupWait) {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        doReturn(hashOperations).when(redisTemplate).opsForHash();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(winsRotationLock);
+        when(hashOperations.entries(KEYS_KEY)).thenAnswer(invocation -> Map.copyOf(store));
+        doAnswer(invocation -> store.put(invocation.getArgument(1), invocation.getArgument(2)))
+                .when(hashOperations).put(eq(KEYS_KEY), any(), any());
+        doAnswer(invocation -> store.remove(invocation.getArgument(1)) != null ? 1L : 0L)
+                .when(hashOperations).delete(eq(KEYS_KEY), any());
+
+        return new JwtKeyRing(redisTemplate, algorithm, rotationInterval, publishAhead, accessTokenExpirationMs,
+                encryptionKey, startupWait);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.duc.oauth2jwt.UnitTest.security;
+
+import com.duc.oauth2jwt.model.Role;
+import com.duc.oauth2jwt.model.User;
+import com.duc.oauth2jwt.security.JwtClaims;
+import com.duc.oauth2jwt.security.JwtKeyRing;
+import com.duc.oauth2jwt.security.JwtTokenProvider;
+import com.duc.oauth2jwt.security.JwtVerificationResult;
+import com.duc.oauth2jwt.service.TokenVersionService;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JwtTokenProviderTest {
+
+    private static final String SECRET =
+            "c3ByaW5nLWJvb3Qtc2VjdXJpdHktb2F1dGgyLWp3dC1zZWNyZXQta2V5LXZlcnktbG9uZy1zZWNyZXQta2V5LXVzZWQtdG8tc2lnbi10aGUtdG9rZW4=";
+
+    private JwtTokenProvider tokenProvider;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        tokenProvider.setJwtSecret(SECRET);
+        tokenProvider.setJwtExpirationInMs(3600000L);
+        tokenProvider.init();
+    }
+
+    @Test
+    void generateTokenFromUsername_RoundTrip() {
+        String token = tokenProvider.generateTokenFromUsername("test@example.com");
+
+        assertTrue(tokenProvider.validateToken(token));
+        assertEquals("test@example.com", tokenProvider.getUsernameFromToken(token));
+    }
+
+    @Test
+    void validateToken_RejectsTamperedSignature() {
+        String token = tokenProvider.generateTokenFromUsername("test@example.com");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertFalse(tokenProvider.validateToken(tampered));
+    }
+
+    @Test
+    void validateToken_RejectsExpiredToken() {
+        tokenProvider.setJwtExpirationInMs(-1000L);
+        String token = tokenProvider.generateTokenFromUsername("test@example.com");
+
+        assertFalse(tokenProvider.validateToken(token));
+    }
+
+    @Test
+    void validateToken_RejectsMalformedAndEmptyTokens() {
+        assertFalse(tokenProvider.validateToken("not-a-jwt"));
+        assertFalse(tokenProvider.validateToken(""));
+    }
+
+    @Test
+    void verify_ReturnsClaimsForValidToken() {
+        String token = tokenProvider.generateTokenFromUsername("test@example.com");
+
+        JwtVerificationResult result = tokenProvider.verify(token);
+
+        assertTrue(result.isValid());
+        assertNull(result.getFailure());
+        assertEquals("test@example.com", result.getClaims().getSubject());
+        assertNotNull(result.getClaims().getIssuedAt());
+        assertTrue(result.getClaims().getExpiration().isAfter(result.getClaims().getIssuedAt()));
+    }
+
+    @Test
+    void verify_ReturnsTypedFailureInsteadOfThrowing() {
+        tokenProvider.setJwtExpirationInMs(-1000L);
+        String expired = tokenProvider.generateTokenFromUsername("test@example.com");
+
+        assertEquals(JwtVerificationResult.Failure.EXPIRED, tokenProvider.verify(expired).getFailure());
+        assertEquals(JwtVerificationResult.Failure.MALFORMED, tokenProvider.verify("not-a-jwt").getFailure());
+        assertEquals(JwtVerificationResult.Failure.EMPTY, tokenProvider.verify("").getFailure());
+        assertNull(tokenProvider.verify("").getClaims());
+    }
+
+    @Test
+    void generateToken_StatelessMode_EmbedsUserIdAndRoles() {
+        tokenProvider.setStatelessAuthentication(true);
+
+        JwtClaims claims = tokenProvider.verify(tokenProvider.generateToken(testUser())).getClaims();
+
+        assertEquals("test@example.com", claims.getSubject());
+        assertEquals(42L, claims.getUserId());
+        assertEquals(List.of("ROLE_USER"), claims.getRoles());
+    }
+
+    @Test
+    void generateToken_DefaultMode_OmitsIdentityClaims() {
+        JwtClaims claims = tokenProvider.verify(tokenProvider.generateToken(testUser())).getClaims();
+
+        assertEquals("test@example.com", claims.getSubject());
+        assertNull(claims.getUserId());
+        assertNull(claims.getRoles());
+    }
+
+    @Test
+    void generateToken_EmbedsCurrentTokenVersionAndId() {
+        TokenVersionService tokenVersionService = mock(TokenVersionService.class);
+        when(tokenVersionService.versionForNewToken("test@example.com")).thenReturn(3L);
+        tokenProvider.setTokenVersionService(tokenVersionService);
+
+        JwtClaims claims = tokenProvider.verify(tokenProvider.generateToken(testUser())).getClaims();
+
+        assertEquals(3L, claims.getTokenVersion());
+        assertNotNull(claims.getTokenId());
+    }
+
+    @Test
+    void asymmetricAlgorithms_SignWithKidAndVerifyFromKeyRing() {
+        for (SignatureAlgorithm algorithm : List.of(SignatureAlgorithm.RS256, SignatureAlgorithm.ES256)) {
+            JwtTokenProvider provider = asymmetricProvider(algorithm);
+
+            String token = provider.generateTokenFromUsername("test@example.com");
+            String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))),
+                    StandardCharsets.UTF_8);
+
+            assertTrue(header.contains("\"kid\""), algorithm + " header: " + header);
+            assertTrue(header.contains("\"alg\":\"" + algorithm.getValue() + "\""));
+            assertEquals("test@example.com", provider.verify(token).getClaims().getSubject());
+        }
+    }
+
+    @Test
+    void asymmetricAlgorithm_RejectsUnknownKidAndHmacTokens() {
+        JwtTokenProvider provider = asymmetricProvider(SignatureAlgorithm.RS256);
+        String foreignKid = Jwts.builder()
+                .setSubject("test@example.com")
+                .setHeaderParam(JwsHeader.KEY_ID, "unknown")
+                .signWith(Keys.keyPairFor(SignatureAlgorithm.RS256).getPrivate(), SignatureAlgorithm.RS256)
+                .compact();
+
+        assertEquals(JwtVerificationResult.Failure.INVALID_SIGNATURE, provider.verify(foreignKid).getFailure());
+        assertFalse(provider.validateToken(tokenProvider.generateTokenFromUsername("test@example.com")));
+    }
+
+    private JwtTokenProvider asymmetricProvider(SignatureAlgorithm algorithm) {
+        JwtKeyRing keyRing = JwtKeyRingTest.newKeyRing(algorithm, Duration.ofDays(7), Duration.ofMinutes(10),
+                3600000L, new HashMap<>());
+        keyRing.init();
+
+        JwtTokenProvider provider = new JwtTokenProvider();
+        provider.setJwtExpirationInMs(3600000L);
+        provider.setSignatureAlgorithm(algorithm);
+        provider.setKeyRing(keyRing);
+        provider.init();
+        return provider;
+    }
+
+    private User testUser() {
+        Role userRole = new Role();
+        userRole.setId(1L);
+        userRole.setName(Role.RoleName.ROLE_USER);
+
+        User user = new User();
+        user.setId(42L);
+        user.setEmail("test@example.com");
+        user.setRoles(Collections.singleton(userRole));
+        return user;
+    }
+}
@@ -0,0 +1,99 @@
+package com.duc.oauth2jwt.UnitTest.security;
+
+import com.duc.oauth2jwt.model.User;
+import com.duc.oauth2jwt.repository.UserRepository;
+import com.duc.oauth2jwt.security.CustomUserDetailsService;
+import com.duc.oauth2jwt.security.PasswordEncoderFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.HashSet;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class PasswordEncoderFactoryTest {
+
+    private static final String PASSWORD = "password123";
+
+    // Cheap parameters keep the test fast; only the relative settings matter here
+    private PasswordEncoderFactory factory(String id, int bcryptStrength) {
+        return new PasswordEncoderFactory(id, bcryptStrength, 16, 32, 1, 1024, 1, 16, 1000);
+    }
+
+    @Test
+    void create_EncodesWithConfiguredIdPrefix() {
+        // Act
+        String bcryptHash = factory("bcrypt", 4).create().encode(PASSWORD);
+        String argon2Hash = factory("argon2", 4).create().encode(PASSWORD);
+        String pbkdf2Hash = factory("pbkdf2", 4).create().encode(PASSWORD);
+
+        // Assert
+        assertTrue(bcryptHash.startsWith("{bcrypt}"));
+        assertTrue(argon2Hash.startsWith("{argon2}"));
+        assertTrue(pbkdf2Hash.startsWith("{pbkdf2}"));
+    }
+
+    @Test
+    void create_MatchesLegacyUnprefixedBcryptAndFlagsItForUpgrade() {
+        // Arrange
+        PasswordEncoder encoder = factory("bcrypt", 4).create();
+        String legacyHash = new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+        // Act & Assert
+        assertTrue(encoder.matches(PASSWORD, legacyHash));
+        assertTrue(encoder.upgradeEncoding(legacyHash));
+    }
+
+    @Test
+    void create_FlagsLowerBcryptStrengthAndOtherAlgorithmsForUpgrade() {
+        // Arrange
+        String weakBcrypt = factory("bcrypt", 4).create().encode(PASSWORD);
+        String pbkdf2Hash = factory("pbkdf2", 4).create().encode(PASSWORD);
+        PasswordEncoder target = factory("bcrypt", 5).create();
+
+        // Act & Assert
+        assertTrue(target.matches(PASSWORD, weakBcrypt));
+        assertTrue(target.upgradeEncoding(weakBcrypt));
+        assertTrue(target.matches(PASSWORD, pbkdf2Hash));
+        assertTrue(target.upgradeEncoding(pbkdf2Hash));
+        assertFalse(target.upgradeEncoding(target.encode(PASSWORD)));
+    }
+
+    @Test
+    void create_UnknownId_Fails() {
+        assertThrows(IllegalStateException.class, () -> factory("md5", 4).create());
+    }
+
+    @Test
+    void successfulLogin_RehashesOutdatedPassword() {
+        // Arrange
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("test@example.com");
+        user.setPassword(new BCryptPasswordEncoder(4).encode(PASSWORD));
+        user.setRoles(new HashSet<>());
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(userRepository);
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setUserDetailsPasswordService(userDetailsService);
+        provider.setPasswordEncoder(factory("argon2", 4).create());
+
+        // Act
+        provider.authenticate(new UsernamePasswordAuthenticationToken("test@example.com", PASSWORD));
+
+        // Assert
+        verify(userRepository).save(user);
+        assertTrue(user.getPassword().startsWith("{argon2}"));
+    }
+}
@@ -0,0 +1,221 @@
+package com.duc.oauth2jwt.UnitTest.security;
+
+import com.duc.oauth2jwt.exception.ServiceOverloadedException;
+import com.duc.oauth2jwt.security.PasswordHashingExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHashingExecutorTest {
+
+    private MeterRegistry meterRegistry;
+    private PasswordHashingExecutor hashingExecutor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // One worker and one queue slot, so the third concurrent task is rejected
+        hashingExecutor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(5), Duration.ofSeconds(2), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hashingExecutor.shutdown();
+    }
+
+    @Test
+    void execute_ReturnsResultFromWorkerThread() {
+        // Act
+        String threadName = hashingExecutor.execute(() -> Thread.currentThread().getName());
+
+        // Assert
+        assertTrue(threadName.startsWith("password-hashing-"));
+        assertEquals(1, meterRegistry.get("password_hashing.wait").timer().count());
+    }
+
+    @Test
+    void execute_RejectsWhenQueueIsFull() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> hashingExecutor.execute(() -> {
+            started.countDown();
+            await(release);
+            return true;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> hashingExecutor.execute(() -> true));
+        waitForQueueSize(1);
+
+        // Act & Assert
+        ServiceOverloadedException ex = assertThrows(ServiceOverloadedException.class,
+                () -> hashingExecutor.execute(() -> true));
+        assertEquals(2, ex.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("password_hashing.rejected").counter().count());
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void execute_RejectsWithoutWaitingWhenEstimatedWaitExceedsMaxWait() throws Exception {
+        // Arrange
+        MeterRegistry slowRegistry = new SimpleMeterRegistry();
+        PasswordHashingExecutor slowExecutor = new PasswordHashingExecutor(1, 10, Duration.ofMillis(200),
+                Duration.ofSeconds(1), slowRegistry);
+        try {
+            // A measured hash of ~150ms puts the next caller behind a busy worker and a queued task at ~300ms
+            slowExecutor.execute(() -> sleep(150));
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> slowExecutor.execute(() -> {
+                started.countDown();
+                await(release);
+                return true;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> slowExecutor.execute(() -> true));
+            waitForQueueSize(slowRegistry, 1);
+
+            // Act
+            long start = System.nanoTime();
+            assertThrows(ServiceOverloadedException.class, () -> slowExecutor.execute(() -> true));
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // Assert
+            assertTrue(elapsedMs < 100, "rejected after " + elapsedMs + "ms");
+            assertTrue(slowRegistry.get("password_hashing.rejected").counter().count() >= 1.0);
+
+            release.countDown();
+            assertTrue(running.get(5, TimeUnit.SECONDS));
+            queued.handle((result, ex) -> null).get(5, TimeUnit.SECONDS);
+        } finally {
+            slowExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void execute_WaitsForHashLongerThanMaxWaitOnceStarted() {
+        // Arrange
+        PasswordHashingExecutor shortWaitExecutor = new PasswordHashingExecutor(1, 10, Duration.ofMillis(100),
+                Duration.ofSeconds(1), new SimpleMeterRegistry());
+        try {
+            // Act: an idle worker picks the task up at once, the hash itself then takes three times max-wait
+            boolean result = shortWaitExecutor.execute(() -> sleep(300));
+
+            // Assert
+            assertTrue(result);
+        } finally {
+            shortWaitExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void execute_RejectsAndSkipsTaskStillQueuedAfterMaxWait() throws Exception {
+        // Arrange
+        MeterRegistry shortWaitRegistry = new SimpleMeterRegistry();
+        PasswordHashingExecutor shortWaitExecutor = new PasswordHashingExecutor(1, 10, Duration.ofMillis(100),
+                Duration.ofSeconds(1), shortWaitRegistry);
+        try {
+            // No hash has been measured yet, so the estimate lets the second task into the queue
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> shortWaitExecutor.execute(() -> {
+                started.countDown();
+                await(release);
+                return true;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            AtomicBoolean queuedRan = new AtomicBoolean();
+
+            // Act & Assert
+            assertThrows(ServiceOverloadedException.class, () -> shortWaitExecutor.execute(() -> queuedRan.getAndSet(true)));
+            assertEquals(1.0, shortWaitRegistry.get("password_hashing.rejected").counter().count());
+
+            release.countDown();
+            assertTrue(running.get(5, TimeUnit.SECONDS));
+            waitForIdle(shortWaitRegistry);
+            assertFalse(queuedRan.get());
+        } finally {
+            shortWaitExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void execute_PropagatesTaskException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> hashingExecutor.execute(() -> {
+            throw new IllegalArgumentException("bad hash");
+        }));
+    }
+
+    @Test
+    void execute_InterruptedWhileWaiting_RestoresInterruptAndIsNotCountedAsOverload() {
+        // Arrange
+        Thread.currentThread().interrupt();
+
+        // Act
+        AuthenticationServiceException ex;
+        boolean interrupted;
+        try {
+            ex = assertThrows(AuthenticationServiceException.class, () -> hashingExecutor.execute(() -> true));
+        } finally {
+            interrupted = Thread.interrupted();
+        }
+
+        // Assert
+        assertTrue(interrupted);
+        assertInstanceOf(InterruptedException.class, ex.getCause());
+        assertEquals(0.0, meterRegistry.get("password_hashing.rejected").counter().count());
+    }
+
+    private void waitForQueueSize(int expected) throws InterruptedException {
+        waitForQueueSize(meterRegistry, expected);
+    }
+
+    private static void waitForQueueSize(MeterRegistry meterRegistry, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("password_hashing.queue.size").gauge().value() < expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void waitForIdle(MeterRegistry meterRegistry) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((meterRegistry.get("password_hashing.queue.size").gauge().value() > 0
+                || meterRegistry.get("password_hashing.active").gauge().value() > 0)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.duc.oauth2jwt.UnitTest.security;
+
+import com.duc.oauth2jwt.model.Role;
+import com.duc.oauth2jwt.model.User;
+import com.duc.oauth2jwt.security.UserDetailsCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserDetailsCacheTest {
+
+    private UserDetailsCache userDetailsCache;
+    private User testUser;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        userDetailsCache = new UserDetailsCache(true, 100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        loads = new AtomicInteger();
+
+        Role userRole = new Role();
+        userRole.setId(1L);
+        userRole.setName(Role.RoleName.ROLE_USER);
+
+        testUser = new User();
+        testUser.setId(1L);
+        testUser.setEmail("test@example.com");
+        testUser.setPassword("encodedPassword");
+        testUser.setRoles(Collections.singleton(userRole));
+    }
+
+    @Test
+    void get_CachesPrincipalWithoutPassword() {
+        UserDetails first = userDetailsCache.get("test@example.com", this::load);
+        UserDetails second = userDetailsCache.get("test@example.com", this::load);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals("test@example.com", first.getUsername());
+        assertNull(first.getPassword());
+        assertEquals(1, first.getAuthorities().size());
+        assertEquals(1, userDetailsCache.stats().hitCount());
+        assertEquals(1, userDetailsCache.stats().missCount());
+    }
+
+    @Test
+    void invalidate_ForcesReload() {
+        userDetailsCache.get("test@example.com", this::load);
+
+        userDetailsCache.invalidate("test@example.com");
+        userDetailsCache.get("test@example.com", this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_Disabled_AlwaysLoads() {
+        UserDetailsCache disabled = new UserDetailsCache(false, 100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+
+        disabled.get("test@example.com", this::load);
+        disabled.get("test@example.com", this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    private UserDetails load(String email) {
+        loads.incrementAndGet();
+        return testUser;
+    }
+}
@@ -0,0 +1,124 @@
+package com.duc.oauth2jwt.UnitTest.services;
+
+import com.duc.oauth2jwt.service.AccessTokenDenylist;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AccessTokenDenylistTest {
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    private MeterRegistry meterRegistry;
+    private AccessTokenDenylist denylist;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        denylist = new AccessTokenDenylist(redisTemplate, meterRegistry, "access-token-revocations", 1000, 0.01);
+    }
+
+    @Test
+    void isRevoked_NotInFilter_AnswersWithoutRedis() {
+        // Arrange
+        loadFilter(Set.of("revoked-elsewhere"));
+
+        // Act
+        boolean revoked = denylist.isRevoked("never-revoked");
+
+        // Assert
+        assertFalse(revoked);
+        verify(redisTemplate, never()).hasKey(anyString());
+        assertEquals(1.0, lookups("filtered"));
+    }
+
+    @Test
+    void isRevoked_FilterHit_ConfirmsAgainstRedis() {
+        // Arrange
+        loadFilter(Set.of("jti-1"));
+        when(redisTemplate.hasKey("access_token:revoked:jti-1")).thenReturn(true);
+
+        // Act & Assert
+        assertTrue(denylist.isRevoked("jti-1"));
+        assertEquals(1.0, lookups("revoked"));
+    }
+
+    @Test
+    void onMessage_AddsRevocationFromOtherNode() {
+        // Arrange
+        loadFilter(Collections.emptySet());
+        when(redisTemplate.hasKey("access_token:revoked:jti-2")).thenReturn(true);
+
+        // Act
+        denylist.onMessage(new DefaultMessage("access-token-revocations".getBytes(StandardCharsets.UTF_8),
+                "jti-2".getBytes(StandardCharsets.UTF_8)), null);
+
+        // Assert
+        assertTrue(denylist.isRevoked("jti-2"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void revoke_StoresIdForRemainingLifetimeAndPublishes() {
+        // Arrange
+        loadFilter(Collections.emptySet());
+        Instant expiration = Instant.now().plusSeconds(600);
+
+        // Act
+        denylist.revoke("jti-3", expiration);
+        denylist.revoke("jti-expired", Instant.now().minusSeconds(1));
+
+        // Assert
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of("access_token:revoked:jti-3", "access_token:revoked")),
+                eq("jti-3"), anyString(), eq(String.valueOf(expiration.toEpochMilli())), anyString(),
+                eq("access-token-revocations"));
+        verifyNoMoreInteractions(redisTemplate);
+    }
+
+    @Test
+    void isRevoked_RedisDown_FailsClosedOnlyForFilterHits() {
+        // Arrange
+        loadFilter(Set.of("jti-4"));
+        when(redisTemplate.hasKey(anyString())).thenThrow(new IllegalStateException("connection refused"));
+
+        // Act & Assert
+        assertTrue(denylist.isRevoked("jti-4"));
+        assertFalse(denylist.isRevoked("jti-5"));
+        assertFalse(denylist.isRevoked(null));
+    }
+
+    private void loadFilter(Set<String> revokedIds) {
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScore(eq("access_token:revoked"), anyDouble(), anyDouble())).thenReturn(revokedIds);
+        denylist.init();
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("access_token_denylist.lookups").tag("result", result).counter().count();
+    }
+}
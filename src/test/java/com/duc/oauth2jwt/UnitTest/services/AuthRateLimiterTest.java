@@ -0,0 +1,151 @@
+package com.duc.oauth2jwt.UnitTest.services;
+
+import com.duc.oauth2jwt.exception.TooManyRequestsException;
+import com.duc.oauth2jwt.service.AuthRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AuthRateLimiterTest {
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private MeterRegistry meterRegistry;
+    private AuthRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiter = newRateLimiter(true);
+    }
+
+    private AuthRateLimiter newRateLimiter(boolean enabled) {
+        return new AuthRateLimiter(redisTemplate, meterRegistry, enabled,
+                "30/1m", "3/1m", "10/1m", "3/1m", "", 1000);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void redisWaits(long waitMs) {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(waitMs);
+    }
+
+    @Test
+    void checkChargesIpAndEmailKeysInOneScriptCall() {
+        // Arrange
+        redisWaits(0);
+
+        // Act
+        rateLimiter.check(AuthRateLimiter.Endpoint.LOGIN, "10.0.0.1", " Test@Example.com");
+
+        // Assert
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of("rate_limit:login:ip:10.0.0.1", "rate_limit:login:email:test@example.com")),
+                any(Object[].class));
+    }
+
+    @Test
+    void checkRejectsWhenRedisReportsAWait() {
+        // Arrange
+        redisWaits(4500);
+
+        // Act
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+                () -> rateLimiter.check(AuthRateLimiter.Endpoint.REGISTER, "10.0.0.1", "new@example.com"));
+
+        // Assert
+        assertEquals(5, ex.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("auth_rate_limit.rejected")
+                .tag("endpoint", "register").tag("source", "redis").counter().count());
+    }
+
+    @Test
+    void checkRejectsLocallyOnceThisNodeUsedUpTheBurst() {
+        // Arrange
+        redisWaits(0);
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.check(AuthRateLimiter.Endpoint.LOGIN, "10.0.0.1", "test@example.com");
+        }
+
+        // Act
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+                () -> rateLimiter.check(AuthRateLimiter.Endpoint.LOGIN, "10.0.0.2", "test@example.com"));
+
+        // Assert
+        assertTrue(ex.getRetryAfterSeconds() >= 1);
+        verify(redisTemplate, times(3)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        assertEquals(1.0, meterRegistry.get("auth_rate_limit.rejected")
+                .tag("endpoint", "login").tag("source", "local").counter().count());
+    }
+
+    @Test
+    void checkDoesNotChargeLocallyWhatRedisRejected() {
+        // Arrange
+        redisWaits(1000);
+        for (int i = 0; i < 3; i++) {
+            assertThrows(TooManyRequestsException.class,
+                    () -> rateLimiter.check(AuthRateLimiter.Endpoint.LOGIN, "10.0.0.1", "test@example.com"));
+        }
+
+        // Act
+        assertThrows(TooManyRequestsException.class,
+                () -> rateLimiter.check(AuthRateLimiter.Endpoint.LOGIN, "10.0.0.1", "test@example.com"));
+
+        // Assert
+        verify(redisTemplate, times(4)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkFailsOpenWhenRedisIsUnavailable() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> rateLimiter.check(AuthRateLimiter.Endpoint.LOGIN, "10.0.0.1", "test@example.com"));
+    }
+
+    @Test
+    void checkSkipsEndpointsWithoutRules() {
+        // Act & Assert
+        assertDoesNotThrow(() -> rateLimiter.check(AuthRateLimiter.Endpoint.REFRESH, "10.0.0.1", null));
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void checkDoesNothingWhenDisabled() {
+        // Arrange
+        AuthRateLimiter limiter = newRateLimiter(false);
+
+        // Act
+        limiter.check(AuthRateLimiter.Endpoint.LOGIN, "10.0.0.1", "test@example.com");
+
+        // Assert
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void constructorRejectsMalformedRules() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new AuthRateLimiter(redisTemplate, meterRegistry, true,
+                "30 per minute", "3/1m", "10/1m", "3/1m", "60/1m", 1000));
+        assertThrows(IllegalArgumentException.class, () -> new AuthRateLimiter(redisTemplate, meterRegistry, true,
+                "0/1m", "3/1m", "10/1m", "3/1m", "60/1m", 1000));
+    }
+}
@@ -4,17 +4,23 @@ import com.duc.oauth2jwt.dto.AuthRequest;
 import com.duc.oauth2jwt.dto.AuthResponse;
 import com.duc.oauth2jwt.dto.RegisterRequest;
 import com.duc.oauth2jwt.exception.AuthenticationException;
+import com.duc.oauth2jwt.exception.TooManyRequestsException;
 import com.duc.oauth2jwt.model.RefreshToken;
 import com.duc.oauth2jwt.model.Role;
 import com.duc.oauth2jwt.model.User;
-import com.duc.oauth2jwt.repository.RoleRepository;
 import com.duc.oauth2jwt.repository.UserRepository;
+import com.duc.oauth2jwt.security.JwtClaims;
 import com.duc.oauth2jwt.security.JwtTokenProvider;
+import com.duc.oauth2jwt.security.JwtVerificationResult;
+import com.duc.oauth2jwt.service.AccessTokenDenylist;
 import com.duc.oauth2jwt.service.AuthService;
+import com.duc.oauth2jwt.service.LoginAttemptService;
 import com.duc.oauth2jwt.service.RefreshTokenService;
+import com.duc.oauth2jwt.service.RoleRegistry;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -23,6 +29,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -41,7 +48,7 @@ public class AuthServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
     @Mock
     private PasswordEncoder passwordEncoder;
     @Mock
@@ -49,6 +56,10 @@ public class AuthServiceTest {
     @Mock
     private RefreshTokenService refreshTokenService;
     @Mock
+    private AccessTokenDenylist accessTokenDenylist;
+    @Mock
+    private LoginAttemptService loginAttemptService;
+    @Mock
     private Authentication authentication;
     @InjectMocks
     private AuthService authService;
@@ -75,11 +86,13 @@ public class AuthServiceTest {
         testUser.setRoles(Collections.singleton(userRole));
 
         // Setup refresh token
-        refreshToken = new RefreshToken();
-        refreshToken.setId(1L);
-        refreshToken.setUser(testUser);
-        refreshToken.setToken("refresh-token");
-        refreshToken.setExpiryDate(Instant.now().plusMillis(86400000));
+        refreshToken = RefreshToken.builder()
+                .id("refresh-token-hash")
+                .token("refresh-token")
+                .userId(testUser.getId())
+                .userEmail(testUser.getEmail())
+                .expiryDate(Instant.now().plusMillis(86400000))
+                .build();
     }
 
     @Test
@@ -91,7 +104,7 @@ public class AuthServiceTest {
 
        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
-       when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
+       when(authentication.getPrincipal()).thenReturn(testUser);
        when(tokenProvider.generateToken(any(Authentication.class))).thenReturn("access-token");
        when(tokenProvider.getJwtExpirationInMs()).thenReturn(3600000L);
        when(refreshTokenService.createRefreshToken(any(User.class))).thenReturn(refreshToken);
@@ -111,9 +124,42 @@ public class AuthServiceTest {
         assertEquals(testUser.getName(), response.getUser().getName());
 
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(userRepository).findByEmail(loginRequest.getEmail());
+        verifyNoInteractions(userRepository);
         verify(tokenProvider).generateToken(authentication);
         verify(refreshTokenService).createRefreshToken(testUser);
+        verify(loginAttemptService).recordSuccess("test@example.com");
+    }
+
+    @Test
+    void login_BadCredentialsRecordsFailure() {
+        // Arrange
+        AuthRequest loginRequest = new AuthRequest();
+        loginRequest.setEmail("test@example.com");
+        loginRequest.setPassword("wrong");
+
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenThrow(new BadCredentialsException("Bad credentials"));
+
+        // Act & Assert
+        assertThrows(BadCredentialsException.class, () -> authService.login(loginRequest));
+        verify(loginAttemptService).recordFailure("test@example.com");
+        verify(loginAttemptService, never()).recordSuccess(anyString());
+    }
+
+    @Test
+    void login_AccountLockedSkipsAuthentication() {
+        // Arrange
+        AuthRequest loginRequest = new AuthRequest();
+        loginRequest.setEmail("test@example.com");
+        loginRequest.setPassword("password");
+
+        doThrow(new TooManyRequestsException("Account temporarily locked after too many failed logins", 30))
+                .when(loginAttemptService).checkNotLocked("test@example.com");
+
+        // Act & Assert
+        assertThrows(TooManyRequestsException.class, () -> authService.login(loginRequest));
+        verifyNoInteractions(authenticationManager, userRepository, refreshTokenService);
+        verify(loginAttemptService, never()).recordFailure(anyString());
     }
 
     @Test
@@ -145,11 +191,9 @@ public class AuthServiceTest {
         registerRequest.setPassword("password");
 
         when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        when(roleRepository.findByName(any(Role.RoleName.class))).thenReturn(Optional.of(userRole));
+        when(roleRegistry.get(any(Role.RoleName.class))).thenReturn(userRole);
         when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
         when(userRepository.save(any(User.class))).thenReturn(testUser);
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
-                .thenReturn(authentication);
         when(tokenProvider.generateToken(any(Authentication.class))).thenReturn("access-token");
         when(tokenProvider.getJwtExpirationInMs()).thenReturn(3600000L);
         when(refreshTokenService.createRefreshToken(any(User.class))).thenReturn(refreshToken);
@@ -163,12 +207,14 @@ public class AuthServiceTest {
         assertEquals("refresh-token", response.getRefreshToken());
 
         verify(userRepository).existsByEmail(registerRequest.getEmail());
-        verify(roleRepository).findByName(Role.RoleName.ROLE_USER);
+        verify(roleRegistry).get(Role.RoleName.ROLE_USER);
         verify(passwordEncoder).encode(registerRequest.getPassword());
         verify(userRepository).save(any(User.class));
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(tokenProvider).generateToken(authentication);
-        verify(refreshTokenService).createRefreshToken(any(User.class));
+        verify(userRepository, never()).findByEmail(anyString());
+        verifyNoInteractions(authenticationManager);
+        verify(tokenProvider).generateToken(argThat((Authentication auth) ->
+                auth.isAuthenticated() && auth.getPrincipal() == testUser && auth.getCredentials() == null));
+        verify(refreshTokenService).createRefreshToken(testUser);
     }
 
     @Test
@@ -185,7 +231,7 @@ public class AuthServiceTest {
         assertThrows(AuthenticationException.class, () -> authService.register(registerRequest));
 
         verify(userRepository).existsByEmail(registerRequest.getEmail());
-        verifyNoInteractions(roleRepository);
+        verifyNoInteractions(roleRegistry);
         verifyNoInteractions(passwordEncoder);
         verifyNoMoreInteractions(userRepository);
     }
@@ -194,10 +240,17 @@ public class AuthServiceTest {
     void refreshToken_Success() {
         // Arrange
         String refreshTokenString = "refresh-token";
-
-        when(refreshTokenService.findByToken(anyString())).thenReturn(Optional.of(refreshToken));
-        when(refreshTokenService.verifyExpiration(any(RefreshToken.class))).thenReturn(refreshToken);
-        when(tokenProvider.generateTokenFromUsername(anyString())).thenReturn("new-access-token");
+        RefreshToken rotatedToken = RefreshToken.builder()
+                .id("rotated-token-hash")
+                .token("rotated-refresh-token")
+                .userId(testUser.getId())
+                .userEmail(testUser.getEmail())
+                .expiryDate(Instant.now().plusMillis(86400000))
+                .build();
+
+        when(refreshTokenService.rotateRefreshToken(anyString())).thenReturn(rotatedToken);
+        when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
+        when(tokenProvider.generateToken(any(User.class))).thenReturn("new-access-token");
         when(tokenProvider.getJwtExpirationInMs()).thenReturn(3600000L);
 
         // Act
@@ -206,11 +259,10 @@ public class AuthServiceTest {
         // Assert
         assertNotNull(response);
         assertEquals("new-access-token", response.getAccessToken());
-        assertEquals(refreshTokenString, response.getRefreshToken());
+        assertEquals("rotated-refresh-token", response.getRefreshToken());
 
-        verify(refreshTokenService).findByToken(refreshTokenString);
-        verify(refreshTokenService).verifyExpiration(refreshToken);
-        verify(tokenProvider).generateTokenFromUsername(testUser.getEmail());
+        verify(refreshTokenService).rotateRefreshToken(refreshTokenString);
+        verify(tokenProvider).generateToken(testUser);
     }
 
     @Test
@@ -218,12 +270,13 @@ public class AuthServiceTest {
         // Arrange
         String invalidToken = "invalid-token";
 
-        when(refreshTokenService.findByToken(anyString())).thenReturn(Optional.empty());
+        when(refreshTokenService.rotateRefreshToken(anyString()))
+                .thenThrow(new AuthenticationException("Invalid refresh token"));
 
         // Act & Assert
         assertThrows(AuthenticationException.class, () -> authService.refreshToken(invalidToken));
 
-        verify(refreshTokenService).findByToken(invalidToken);
+        verify(refreshTokenService).rotateRefreshToken(invalidToken);
         verifyNoMoreInteractions(refreshTokenService);
         verifyNoInteractions(tokenProvider);
     }
@@ -234,9 +287,39 @@ public class AuthServiceTest {
         String refreshTokenString = "refresh-token";
 
         // Act
-        authService.logout(refreshTokenString);
+        authService.logout(refreshTokenString, null);
 
         // Assert
         verify(refreshTokenService).deleteByToken(refreshTokenString);
+        verifyNoInteractions(accessTokenDenylist);
+    }
+
+    @Test
+    void logout_RevokesPresentedAccessToken() {
+        // Arrange
+        Instant expiration = Instant.now().plusSeconds(600);
+        when(tokenProvider.verify("access-token")).thenReturn(JwtVerificationResult.success(
+                JwtClaims.builder().tokenId("jti-1").subject("test@example.com").expiration(expiration).build()));
+
+        // Act
+        authService.logout("refresh-token", "access-token");
+
+        // Assert
+        verify(refreshTokenService).deleteByToken("refresh-token");
+        verify(accessTokenDenylist).revoke("jti-1", expiration);
+    }
+
+    @Test
+    void logout_RevokesAccessTokenEvenWhenRefreshTokenIsUnknown() {
+        // Arrange
+        Instant expiration = Instant.now().plusSeconds(600);
+        when(tokenProvider.verify("access-token")).thenReturn(JwtVerificationResult.success(
+                JwtClaims.builder().tokenId("jti-1").subject("test@example.com").expiration(expiration).build()));
+        doThrow(new AuthenticationException("Refresh token not found"))
+                .when(refreshTokenService).deleteByToken("unknown-refresh-token");
+
+        // Act & Assert
+        assertThrows(AuthenticationException.class, () -> authService.logout("unknown-refresh-token", "access-token"));
+        verify(accessTokenDenylist).revoke("jti-1", expiration);
     }
 }
@@ -0,0 +1,36 @@
+package com.duc.oauth2jwt.UnitTest.services;
+
+import com.duc.oauth2jwt.service.BloomFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BloomFilterTest {
+
+    @Test
+    void mightContain_NoFalseNegativesAndFalsePositivesNearConfiguredRate() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        String[] added = new String[10_000];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = UUID.randomUUID().toString();
+            filter.put(added[i]);
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        for (String value : added) {
+            assertTrue(filter.mightContain(value));
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+}
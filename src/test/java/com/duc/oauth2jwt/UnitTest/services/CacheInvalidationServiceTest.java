@@ -0,0 +1,98 @@
+package com.duc.oauth2jwt.UnitTest.services;
+
+import com.duc.oauth2jwt.service.CacheInvalidationService;
+import com.duc.oauth2jwt.service.InvalidatableCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CacheInvalidationServiceTest {
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private InvalidatableCache userCache;
+
+    private CacheInvalidationService cacheInvalidationService;
+
+    @BeforeEach
+    void setUp() {
+        when(userCache.getCacheName()).thenReturn("user_details");
+        cacheInvalidationService = new CacheInvalidationService(redisTemplate, List.of(userCache), "cache-invalidation");
+    }
+
+    @Test
+    void invalidate_AppliesLocallyAndPublishes() {
+        // Act
+        cacheInvalidationService.invalidate("user_details", "test@example.com");
+
+        // Assert
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(userCache).invalidate("test@example.com");
+        verify(redisTemplate).convertAndSend(eq("cache-invalidation"), message.capture());
+        assertTrue(message.getValue().endsWith("|user_details|test@example.com"));
+    }
+
+    @Test
+    void invalidate_RedisDown_StillAppliesLocally() {
+        when(redisTemplate.convertAndSend(anyString(), anyString())).thenThrow(new RuntimeException("connection refused"));
+
+        cacheInvalidationService.invalidate("user_details", "test@example.com");
+
+        verify(userCache).invalidate("test@example.com");
+    }
+
+    @Test
+    void onMessage_FromOtherNode_AppliesInvalidation() {
+        cacheInvalidationService.onMessage(message("other-node|user_details|test@example.com"), null);
+        cacheInvalidationService.onMessage(message("other-node|user_details|*"), null);
+
+        verify(userCache).invalidate("test@example.com");
+        verify(userCache).invalidateAll();
+    }
+
+    @Test
+    void onMessage_OwnMessage_IsIgnored() {
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        cacheInvalidationService.invalidateAll("user_details");
+        verify(redisTemplate).convertAndSend(eq("cache-invalidation"), published.capture());
+        clearInvocations(userCache);
+
+        cacheInvalidationService.onMessage(message(published.getValue()), null);
+
+        verify(userCache, never()).invalidateAll();
+    }
+
+    @Test
+    void onMessage_MalformedOrUnknownCache_IsIgnored() {
+        cacheInvalidationService.onMessage(message("garbage"), null);
+        cacheInvalidationService.onMessage(message("other-node|unknown|key"), null);
+
+        verify(userCache, never()).invalidate(anyString());
+        verify(userCache, never()).invalidateAll();
+    }
+
+    @Test
+    void onChannelSubscribed_FlushesAllLocalCaches() {
+        cacheInvalidationService.onChannelSubscribed("cache-invalidation".getBytes(StandardCharsets.UTF_8), 1);
+
+        verify(userCache).invalidateAll();
+    }
+
+    private DefaultMessage message(String body) {
+        return new DefaultMessage("cache-invalidation".getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
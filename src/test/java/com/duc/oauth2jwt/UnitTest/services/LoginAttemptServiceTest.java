@@ -0,0 +1,119 @@
+package com.duc.oauth2jwt.UnitTest.services;
+
+import com.duc.oauth2jwt.exception.TooManyRequestsException;
+import com.duc.oauth2jwt.service.LoginAttemptService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LoginAttemptServiceTest {
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private MeterRegistry meterRegistry;
+    private LoginAttemptService loginAttemptService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        loginAttemptService = newService(true);
+    }
+
+    private LoginAttemptService newService(boolean enabled) {
+        return new LoginAttemptService(redisTemplate, meterRegistry, enabled, 5,
+                Duration.ofSeconds(30), Duration.ofHours(1), Duration.ofHours(24));
+    }
+
+    @Test
+    void checkNotLockedPassesWithoutLock() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("login_lock:test@example.com")).thenReturn(null);
+
+        // Act & Assert
+        assertDoesNotThrow(() -> loginAttemptService.checkNotLocked("Test@Example.com"));
+    }
+
+    @Test
+    void checkNotLockedRejectsWithRemainingLockAsRetryAfter() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("login_lock:test@example.com"))
+                .thenReturn(String.valueOf(System.currentTimeMillis() + 60_000));
+
+        // Act
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+                () -> loginAttemptService.checkNotLocked("test@example.com"));
+
+        // Assert
+        assertTrue(ex.getRetryAfterSeconds() > 55 && ex.getRetryAfterSeconds() <= 60);
+        assertEquals(1.0, meterRegistry.get("account_lockout.rejected").counter().count());
+    }
+
+    @Test
+    void checkNotLockedFailsOpenWhenRedisIsUnavailable() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenThrow(new RedisConnectionFailureException("down"));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> loginAttemptService.checkNotLocked("test@example.com"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordFailurePassesLockSettingsToScript() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of("login_failures:test@example.com",
+                "login_lock:test@example.com")), anyString(), eq("5"), eq("30000"), eq("3600000"), eq("86400000")))
+                .thenReturn(30000L);
+
+        // Act
+        loginAttemptService.recordFailure("test@example.com");
+
+        // Assert
+        assertEquals(1.0, meterRegistry.get("account_lockout.locks").counter().count());
+    }
+
+    @Test
+    void recordSuccessClearsCounterAndLock() {
+        // Act
+        loginAttemptService.recordSuccess("Test@Example.com");
+
+        // Assert
+        verify(redisTemplate).delete(List.of("login_failures:test@example.com", "login_lock:test@example.com"));
+    }
+
+    @Test
+    void disabledServiceDoesNotTouchRedis() {
+        // Arrange
+        LoginAttemptService disabled = newService(false);
+
+        // Act
+        disabled.checkNotLocked("test@example.com");
+        disabled.recordFailure("test@example.com");
+        disabled.recordSuccess("test@example.com");
+
+        // Assert
+        verifyNoInteractions(redisTemplate);
+    }
+}
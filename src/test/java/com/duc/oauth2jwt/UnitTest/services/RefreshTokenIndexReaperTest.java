@@ -0,0 +1,103 @@
+package com.duc.oauth2jwt.UnitTest.services;
+
+import com.duc.oauth2jwt.service.RefreshTokenIndexReaper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RefreshTokenIndexReaperTest {
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reap_ContinuesUntilCursorWrapsAndRecordsReclaimed() {
+        // Arrange
+        RefreshTokenIndexReaper reaper = new RefreshTokenIndexReaper(redisTemplate, meterRegistry, true, 100, 1000, 0);
+        when(redisTemplate.execute(any(RedisScript.class), eq(Collections.singletonList("refresh_tokens")), any(), any()))
+                .thenReturn(List.of("17", 100L, 3L), List.of("0", 40L, 2L));
+        when(redisTemplate.execute(any(RedisScript.class), eq(Collections.emptyList()), any(), any(), any(), any()))
+                .thenReturn(List.of("0", 10L, 4L));
+
+        // Act
+        reaper.reap();
+
+        // Assert
+        assertEquals(5.0, meterRegistry.get("refresh_token_reaper.reclaimed").tag("structure", "keyspace").counter().count());
+        assertEquals(4.0, meterRegistry.get("refresh_token_reaper.reclaimed").tag("structure", "index").counter().count());
+        assertEquals(150.0, meterRegistry.get("refresh_token_reaper.examined").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reap_StopsAtBudgetAndResumesFromCursor() {
+        // Arrange
+        RefreshTokenIndexReaper reaper = new RefreshTokenIndexReaper(redisTemplate, meterRegistry, true, 100, 100, 0);
+        when(redisTemplate.execute(any(RedisScript.class), eq(Collections.singletonList("refresh_tokens")), any(), any()))
+                .thenReturn(List.of("42", 100L, 0L), List.of("0", 10L, 0L));
+        when(redisTemplate.execute(any(RedisScript.class), eq(Collections.emptyList()), any(), any(), any(), any()))
+                .thenReturn(List.of("0", 0L, 0L));
+
+        // Act
+        reaper.reap();
+        reaper.reap();
+
+        // Assert
+        verify(redisTemplate).execute(any(RedisScript.class), eq(Collections.singletonList("refresh_tokens")), eq("0"), eq("100"));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(Collections.singletonList("refresh_tokens")), eq("42"), eq("100"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reap_Interrupted_KeepsInterruptFlagAndStopsRun() {
+        // Arrange
+        RefreshTokenIndexReaper reaper = new RefreshTokenIndexReaper(redisTemplate, meterRegistry, true, 100, 1000, 50);
+        when(redisTemplate.execute(any(RedisScript.class), eq(Collections.singletonList("refresh_tokens")), any(), any()))
+                .thenReturn(List.of("17", 100L, 0L));
+        Thread.currentThread().interrupt();
+
+        // Act
+        reaper.reap();
+
+        // Assert
+        assertTrue(Thread.interrupted());
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), eq(Collections.singletonList("refresh_tokens")), any(), any());
+        verify(redisTemplate, never()).execute(any(RedisScript.class), eq(Collections.emptyList()), any(), any(), any(), any());
+    }
+
+    @Test
+    void reap_Disabled_DoesNothing() {
+        // Arrange
+        RefreshTokenIndexReaper reaper = new RefreshTokenIndexReaper(redisTemplate, meterRegistry, false, 100, 1000, 0);
+
+        // Act
+        reaper.reap();
+
+        // Assert
+        verifyNoInteractions(redisTemplate);
+    }
+}
@@ -4,7 +4,7 @@ import com.duc.oauth2jwt.exception.AuthenticationException;
 import com.duc.oauth2jwt.model.RefreshToken;
 import com.duc.oauth2jwt.model.User;
 import com.duc.oauth2jwt.repository.RefreshTokenRepository;
-import com.duc.oauth2jwt.repository.UserRepository;
+import com.duc.oauth2jwt.repository.RefreshTokenStore;
 import com.duc.oauth2jwt.service.RefreshTokenService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,17 +16,19 @@ import org.springframework.test.util.ReflectionTestUtils;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Optional;
 
 @ExtendWith(MockitoExtension.class)
 public class RefreshTokenServiceTest {
     @Mock
-    private RefreshTokenRepository refreshTokenRepository;
+    private RefreshTokenStore refreshTokenStore;
     @Mock
-    private UserRepository userRepository;
+    private RefreshTokenRepository refreshTokenRepository;
     @InjectMocks
     private RefreshTokenService refreshTokenService;
     private User testUser;
@@ -37,6 +39,7 @@ public class RefreshTokenServiceTest {
     void setUp() {
         // Set refresh token expiration time
         ReflectionTestUtils.setField(refreshTokenService, "refreshTokenDurationMs", 86400000L);
+        ReflectionTestUtils.setField(refreshTokenService, "legacyFallback", true);
 
         // Setup test user
         testUser = new User();
@@ -44,56 +47,30 @@ public class RefreshTokenServiceTest {
         testUser.setEmail("test@example.com");
 
         // Setup valid refresh token
-        validRefreshToken = new RefreshToken();
-        validRefreshToken.setId(1L);
-        validRefreshToken.setUser(testUser);
-        validRefreshToken.setToken("valid-refresh-token");
-        validRefreshToken.setExpiryDate(Instant.now().plusMillis(86400000));
+        validRefreshToken = RefreshToken.builder()
+                .id("hash-1")
+                .token("valid-refresh-token")
+                .userId(testUser.getId())
+                .userEmail(testUser.getEmail())
+                .expiryDate(Instant.now().plusMillis(86400000))
+                .build();
 
         // Setup expired refresh token
-        expiredRefreshToken = new RefreshToken();
-        expiredRefreshToken.setId(2L);
-        expiredRefreshToken.setUser(testUser);
-        expiredRefreshToken.setToken("expired-refresh-token");
-        expiredRefreshToken.setExpiryDate(Instant.now().minusMillis(86400000));
-    }
-
-    @Test
-    void findByToken_Success() {
-        // Arrange
-        when(refreshTokenRepository.findByToken(anyString())).thenReturn(Optional.of(validRefreshToken));
-
-        // Act
-        Optional<RefreshToken> refreshToken = refreshTokenService.findByToken("valid-refresh-token");
-
-        // Assert
-        assertTrue(refreshToken.isPresent());
-        assertEquals(validRefreshToken.getId(), refreshToken.get().getId());
-
-        verify(refreshTokenRepository).findByToken("valid-refresh-token");
-    }
-
-    @Test
-    void findByToken_NonExistent() {
-        // Arrange
-        when(refreshTokenRepository.findByToken(anyString())).thenReturn(Optional.empty());
-
-        // Act
-        Optional<RefreshToken> result = refreshTokenService.findByToken("non-existent-token");
-
-        // Assert
-        assertTrue(result.isEmpty());
-
-        verify(refreshTokenRepository).findByToken("non-existent-token");
+        expiredRefreshToken = RefreshToken.builder()
+                .id("hash-2")
+                .token("expired-refresh-token")
+                .userId(testUser.getId())
+                .userEmail(testUser.getEmail())
+                .expiryDate(Instant.now().minusMillis(86400000))
+                .build();
     }
 
     @Test
-    void createRefreshToken_NewToken() {
+    void createRefreshToken_ReplacesExistingTokens() {
         // Arrange
-        when(refreshTokenRepository.findByUser(any(User.class))).thenReturn(Optional.empty());
-        when(refreshTokenRepository.save(any(RefreshToken.class))).thenAnswer(invocation -> {
+        when(refreshTokenStore.save(any(RefreshToken.class))).thenAnswer(invocation -> {
             RefreshToken token = invocation.getArgument(0);
-            token.setId(1L);
+            token.setId("hash-3");
             return token;
         });
 
@@ -103,107 +80,143 @@ public class RefreshTokenServiceTest {
         // Assert
         assertNotNull(result);
         assertNotNull(result.getId());
-        assertEquals(testUser, result.getUser());
-        assertNotNull(result.getToken());
+        assertEquals(testUser.getId(), result.getUserId());
+        assertEquals(testUser.getEmail(), result.getUserEmail());
+        assertTrue(result.getToken().startsWith(testUser.getId() + "."));
         assertNotNull(result.getExpiryDate());
         assertTrue(result.getExpiryDate().isAfter(Instant.now()));
 
-        verify(refreshTokenRepository).findByUser(testUser);
-        verify(refreshTokenRepository).save(any(RefreshToken.class));
+        verify(refreshTokenStore).deleteByUserId(testUser.getId());
+        verify(refreshTokenStore).save(any(RefreshToken.class));
     }
 
     @Test
-    void createRefreshToken_ReplaceExisting() {
+    void rotateRefreshToken_Success() {
         // Arrange
-        when(refreshTokenRepository.findByUser(any(User.class))).thenReturn(Optional.of(validRefreshToken));
-        when(refreshTokenRepository.save(any(RefreshToken.class))).thenAnswer(invocation -> {
-            RefreshToken token = invocation.getArgument(0);
-            token.setId(3L);
-            return token;
-        });
+        when(refreshTokenStore.rotate(eq("valid-refresh-token"), any(Instant.class)))
+                .thenAnswer(invocation -> new RefreshTokenStore.Rotation(RefreshTokenStore.RotationStatus.ROTATED,
+                        RefreshToken.builder()
+                                .token("1.new-refresh-token")
+                                .userId(testUser.getId())
+                                .userEmail(testUser.getEmail())
+                                .expiryDate(invocation.getArgument(1))
+                                .build()));
 
         // Act
-        RefreshToken result = refreshTokenService.createRefreshToken(testUser);
+        RefreshToken result = refreshTokenService.rotateRefreshToken("valid-refresh-token");
 
         // Assert
-        assertNotNull(result);
-        assertNotNull(result.getId());
-        assertEquals(testUser, result.getUser());
-        assertNotNull(result.getToken());
-        assertNotNull(result.getExpiryDate());
-
-        verify(refreshTokenRepository).findByUser(testUser);
-        verify(refreshTokenRepository).delete(validRefreshToken);
-        verify(refreshTokenRepository).save(any(RefreshToken.class));
+        assertNotEquals("valid-refresh-token", result.getToken());
+        assertEquals(testUser.getId(), result.getUserId());
+        verify(refreshTokenStore, times(1)).rotate(eq("valid-refresh-token"), any(Instant.class));
+        verifyNoInteractions(refreshTokenRepository);
     }
 
     @Test
-    void verifyExpiration_Valid() {
-        // Act
-        RefreshToken result = refreshTokenService.verifyExpiration(validRefreshToken);
-
-        // Assert
-        assertNotNull(result);
-        assertEquals(validRefreshToken.getId(), result.getId());
+    void rotateRefreshToken_Expired() {
+        // Arrange
+        when(refreshTokenStore.rotate(anyString(), any(Instant.class)))
+                .thenReturn(new RefreshTokenStore.Rotation(RefreshTokenStore.RotationStatus.EXPIRED, null));
 
+        // Act & Assert
+        assertThrows(AuthenticationException.class, () -> refreshTokenService.rotateRefreshToken("expired-refresh-token"));
         verifyNoInteractions(refreshTokenRepository);
     }
 
     @Test
-    void verifyExpiration_Expired() {
+    void rotateRefreshToken_AlreadyConsumed() {
+        // Arrange
+        when(refreshTokenStore.rotate(anyString(), any(Instant.class)))
+                .thenReturn(new RefreshTokenStore.Rotation(RefreshTokenStore.RotationStatus.NOT_FOUND, null));
+        when(refreshTokenRepository.findByToken(anyString())).thenReturn(Optional.empty());
+
         // Act & Assert
-        assertThrows(AuthenticationException.class, () -> refreshTokenService.verifyExpiration(expiredRefreshToken));
+        assertThrows(AuthenticationException.class, () -> refreshTokenService.rotateRefreshToken("valid-refresh-token"));
+        verify(refreshTokenStore, times(1)).rotate(anyString(), any(Instant.class));
+    }
 
-        verify(refreshTokenRepository).delete(expiredRefreshToken);
+    @Test
+    void rotateRefreshToken_LegacyToken_IsMigratedThenRotated() {
+        // Arrange
+        RefreshToken legacyToken = RefreshToken.builder()
+                .id("legacy-uuid")
+                .token("legacy-refresh-token")
+                .userId(testUser.getId())
+                .userEmail(testUser.getEmail())
+                .expiryDate(Instant.now().plusMillis(3600000))
+                .build();
+        when(refreshTokenStore.rotate(eq("legacy-refresh-token"), any(Instant.class)))
+                .thenReturn(new RefreshTokenStore.Rotation(RefreshTokenStore.RotationStatus.NOT_FOUND, null))
+                .thenAnswer(invocation -> new RefreshTokenStore.Rotation(RefreshTokenStore.RotationStatus.ROTATED,
+                        RefreshToken.builder()
+                                .token("1.new-refresh-token")
+                                .userId(testUser.getId())
+                                .userEmail(testUser.getEmail())
+                                .expiryDate(invocation.getArgument(1))
+                                .build()));
+        when(refreshTokenRepository.findByToken("legacy-refresh-token")).thenReturn(Optional.of(legacyToken));
+        when(refreshTokenStore.save(any(RefreshToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        RefreshToken result = refreshTokenService.rotateRefreshToken("legacy-refresh-token");
+
+        // Assert
+        assertNotEquals("legacy-refresh-token", result.getToken());
+        assertEquals(testUser.getId(), result.getUserId());
+
+        verify(refreshTokenRepository).delete(legacyToken);
+        verify(refreshTokenStore).save(any(RefreshToken.class));
+        verify(refreshTokenStore, times(2)).rotate(eq("legacy-refresh-token"), any(Instant.class));
     }
 
     @Test
     void deleteByToken_Success() {
         // Arrange
-        when(refreshTokenRepository.findByToken(anyString())).thenReturn(Optional.of(validRefreshToken));
+        when(refreshTokenStore.deleteByToken(anyString())).thenReturn(true);
 
         // Act
         refreshTokenService.deleteByToken("valid-refresh-token");
 
         // Assert
-        verify(refreshTokenRepository).findByToken("valid-refresh-token");
-        verify(refreshTokenRepository).delete(validRefreshToken);
+        verify(refreshTokenStore).deleteByToken("valid-refresh-token");
+        verifyNoInteractions(refreshTokenRepository);
     }
 
     @Test
     void deleteByToken_NonExistent() {
         // Arrange
+        when(refreshTokenStore.deleteByToken(anyString())).thenReturn(false);
         when(refreshTokenRepository.findByToken(anyString())).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(AuthenticationException.class, () -> refreshTokenService.deleteByToken("non-existent-token"));
 
-        verify(refreshTokenRepository).findByToken("non-existent-token");
+        verify(refreshTokenStore).deleteByToken("non-existent-token");
         verify(refreshTokenRepository, never()).delete(any(RefreshToken.class));
     }
 
     @Test
     void deleteByUserId_Success() {
-        // Arrange
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUser));
-
         // Act
         refreshTokenService.deleteByUserId(1L);
 
         // Assert
-        verify(userRepository).findById(1L);
-        verify(refreshTokenRepository).deleteByUser(testUser);
+        verify(refreshTokenStore).deleteByUserId(1L);
     }
 
     @Test
-    void deleteByUserId_UserNotFound() {
+    void migrateLegacyTokens_SkipsExpiredAndDanglingEntries() {
         // Arrange
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(refreshTokenRepository.findAll()).thenReturn(Arrays.asList(validRefreshToken, expiredRefreshToken, null));
+        when(refreshTokenStore.save(any(RefreshToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        // Act & Assert
-        assertThrows(AuthenticationException.class, () -> refreshTokenService.deleteByUserId(999L));
+        // Act
+        int migrated = refreshTokenService.migrateLegacyTokens();
 
-        verify(userRepository).findById(999L);
-        verifyNoInteractions(refreshTokenRepository);
+        // Assert
+        assertEquals(1, migrated);
+        verify(refreshTokenRepository).delete(validRefreshToken);
+        verify(refreshTokenRepository).delete(expiredRefreshToken);
+        verify(refreshTokenStore, times(1)).save(any(RefreshToken.class));
     }
 }
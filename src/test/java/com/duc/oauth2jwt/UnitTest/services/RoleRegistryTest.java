@@ -0,0 +1,76 @@
+package com.duc.oauth2jwt.UnitTest.services;
+
+import com.duc.oauth2jwt.model.Role;
+import com.duc.oauth2jwt.repository.RoleRepository;
+import com.duc.oauth2jwt.service.RoleRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RoleRegistryTest {
+    @Mock
+    private RoleRepository roleRepository;
+    @InjectMocks
+    private RoleRegistry roleRegistry;
+
+    private Role userRole;
+    private Role adminRole;
+
+    @BeforeEach
+    void setUp() {
+        userRole = Role.builder().id(1L).name(Role.RoleName.ROLE_USER).build();
+        adminRole = Role.builder().id(2L).name(Role.RoleName.ROLE_ADMIN).build();
+    }
+
+    @Test
+    void get_ServesRolesFromMemoryAfterStartup() {
+        // Arrange
+        when(roleRepository.findAll()).thenReturn(List.of(userRole, adminRole));
+        roleRegistry.loadOnStartup();
+
+        // Act
+        Role user = roleRegistry.get(Role.RoleName.ROLE_USER);
+        Role admin = roleRegistry.get(Role.RoleName.ROLE_ADMIN);
+        roleRegistry.get(Role.RoleName.ROLE_USER);
+
+        // Assert
+        assertSame(userRole, user);
+        assertSame(adminRole, admin);
+        verify(roleRepository, times(1)).findAll();
+    }
+
+    @Test
+    void get_ReloadsOnceWhenRoleIsMissing() {
+        // Arrange
+        when(roleRepository.findAll())
+                .thenReturn(List.of(userRole))
+                .thenReturn(List.of(userRole, adminRole));
+        roleRegistry.loadOnStartup();
+
+        // Act
+        Role admin = roleRegistry.get(Role.RoleName.ROLE_ADMIN);
+
+        // Assert
+        assertSame(adminRole, admin);
+        verify(roleRepository, times(2)).findAll();
+    }
+
+    @Test
+    void get_UnknownRole_Throws() {
+        // Arrange
+        when(roleRepository.findAll()).thenReturn(Collections.emptyList());
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> roleRegistry.get(Role.RoleName.ROLE_ADMIN));
+    }
+}
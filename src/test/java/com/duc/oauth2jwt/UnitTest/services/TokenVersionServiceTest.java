@@ -0,0 +1,126 @@
+package com.duc.oauth2jwt.UnitTest.services;
+
+import com.duc.oauth2jwt.security.TokenVersionCache;
+import com.duc.oauth2jwt.service.CacheInvalidationService;
+import com.duc.oauth2jwt.service.TokenVersionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenVersionServiceTest {
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @Mock
+    private CacheInvalidationService cacheInvalidationService;
+
+    private TokenVersionCache tokenVersionCache;
+    private TokenVersionService tokenVersionService;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tokenVersionCache = new TokenVersionCache(100, Duration.ofMinutes(10), meterRegistry);
+        tokenVersionService = new TokenVersionService(redisTemplate, tokenVersionCache, cacheInvalidationService,
+                meterRegistry);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void isCurrent_ReadsRedisOnceThenServesFromCache() {
+        // Arrange
+        when(valueOperations.get("token_version:test@example.com")).thenReturn("2");
+
+        // Act
+        boolean current = tokenVersionService.isCurrent("test@example.com", 2L);
+        boolean outdated = tokenVersionService.isCurrent("test@example.com", 1L);
+        boolean unversioned = tokenVersionService.isCurrent("test@example.com", null);
+
+        // Assert
+        assertTrue(current);
+        assertFalse(outdated);
+        assertFalse(unversioned);
+        verify(valueOperations, times(1)).get("token_version:test@example.com");
+    }
+
+    @Test
+    void isCurrent_UserWithoutVersion_AcceptsUnversionedTokens() {
+        // Arrange
+        when(valueOperations.get("token_version:test@example.com")).thenReturn(null);
+
+        // Act & Assert
+        assertTrue(tokenVersionService.isCurrent("test@example.com", null));
+    }
+
+    @Test
+    void bump_IncrementsAndPushesInvalidation() {
+        // Act
+        tokenVersionService.bump("test@example.com");
+
+        // Assert
+        verify(valueOperations).increment("token_version:test@example.com");
+        verify(cacheInvalidationService).invalidate(TokenVersionCache.CACHE_NAME, "test@example.com");
+    }
+
+    @Test
+    void versionForNewToken_BypassesCache() {
+        // Arrange
+        when(valueOperations.get("token_version:test@example.com")).thenReturn("1", "2");
+        tokenVersionService.isCurrent("test@example.com", 1L);
+
+        // Act
+        long version = tokenVersionService.versionForNewToken("test@example.com");
+
+        // Assert
+        assertEquals(2L, version);
+    }
+
+    @Test
+    void isCurrent_RedisDown_AcceptsTokenVersionAndRecordsDegradedCheck() {
+        // Arrange
+        when(valueOperations.get("token_version:test@example.com"))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        // Act
+        boolean current = tokenVersionService.isCurrent("test@example.com", 1L);
+
+        // Assert
+        assertTrue(current);
+        assertEquals(1.0, meterRegistry.get("token_version.degraded").tag("operation", "check").counter().count());
+    }
+
+    @Test
+    void versionForNewToken_RedisDown_FallsBackToCachedVersion() {
+        // Arrange
+        when(valueOperations.get("token_version:cached@example.com"))
+                .thenReturn("3")
+                .thenThrow(new RedisConnectionFailureException("down"));
+        when(valueOperations.get("token_version:unknown@example.com"))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        tokenVersionService.isCurrent("cached@example.com", 3L);
+
+        // Act
+        long cached = tokenVersionService.versionForNewToken("cached@example.com");
+        long unknown = tokenVersionService.versionForNewToken("unknown@example.com");
+
+        // Assert
+        assertEquals(3L, cached);
+        assertEquals(0L, unknown);
+        assertEquals(2.0, meterRegistry.get("token_version.degraded").tag("operation", "issue").counter().count());
+    }
+}
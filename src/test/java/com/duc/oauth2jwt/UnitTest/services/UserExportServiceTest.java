@@ -0,0 +1,117 @@
+package com.duc.oauth2jwt.UnitTest.services;
+
+import com.duc.oauth2jwt.exception.BadRequestException;
+import com.duc.oauth2jwt.model.Role;
+import com.duc.oauth2jwt.repository.UserRepository;
+import com.duc.oauth2jwt.repository.UserRoleRow;
+import com.duc.oauth2jwt.service.UserExportService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class UserExportServiceTest {
+    @Mock
+    private UserRepository userRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private UserExportService userExportService;
+    private final AtomicBoolean streamClosed = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() {
+        userExportService = new UserExportService(userRepository, objectMapper);
+    }
+
+    @Test
+    void export_Ndjson_GroupsRolesPerUser() throws Exception {
+        // Arrange
+        stubRows();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        userExportService.export(UserExportService.Format.NDJSON, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1, first.get("id").asInt());
+        assertEquals(2, first.get("roles").size());
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals("b@example.com", second.get("email").asText());
+        assertEquals(0, second.get("roles").size());
+        assertTrue(streamClosed.get());
+    }
+
+    @Test
+    void export_Csv_WritesHeaderAndEscapesFields() throws Exception {
+        // Arrange
+        stubRows();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        userExportService.export(UserExportService.Format.CSV, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("id,email,name,imageUrl,roles", lines[0]);
+        assertEquals("1,a@example.com,Alice,,ROLE_ADMIN;ROLE_USER", lines[1]);
+        assertEquals("2,b@example.com,\"Smith, \"\"Bob\"\"\",http://example.com/b.png,", lines[2]);
+    }
+
+    @Test
+    void formatFrom_RejectsUnknownFormat() {
+        assertEquals(UserExportService.Format.CSV, UserExportService.Format.from("csv"));
+        assertThrows(BadRequestException.class, () -> UserExportService.Format.from("xml"));
+    }
+
+    private void stubRows() {
+        when(userRepository.streamAllWithRoleNames()).thenReturn(Stream.of(
+                row(1L, "a@example.com", "Alice", null, Role.RoleName.ROLE_USER),
+                row(1L, "a@example.com", "Alice", null, Role.RoleName.ROLE_ADMIN),
+                row(2L, "b@example.com", "Smith, \"Bob\"", "http://example.com/b.png", null)
+        ).onClose(() -> streamClosed.set(true)));
+    }
+
+    private UserRoleRow row(Long id, String email, String name, String imageUrl, Role.RoleName roleName) {
+        return new UserRoleRow() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getImageUrl() {
+                return imageUrl;
+            }
+
+            @Override
+            public Role.RoleName getRoleName() {
+                return roleName;
+            }
+        };
+    }
+}
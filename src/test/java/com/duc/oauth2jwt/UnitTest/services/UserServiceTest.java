@@ -1,11 +1,26 @@
 package com.duc.oauth2jwt.UnitTest.services;
 
+import com.duc.oauth2jwt.dto.BulkRoleRequest;
+import com.duc.oauth2jwt.dto.BulkRoleResultDto;
+import com.duc.oauth2jwt.dto.SessionDto;
 import com.duc.oauth2jwt.dto.UserDto;
+import com.duc.oauth2jwt.dto.UserPageDto;
+import com.duc.oauth2jwt.exception.BadRequestException;
 import com.duc.oauth2jwt.exception.ResourceNotFoundException;
+import com.duc.oauth2jwt.model.RefreshToken;
 import com.duc.oauth2jwt.model.Role;
 import com.duc.oauth2jwt.model.User;
-import com.duc.oauth2jwt.repository.RoleRepository;
 import com.duc.oauth2jwt.repository.UserRepository;
+import com.duc.oauth2jwt.repository.UserRoleMembership;
+import com.duc.oauth2jwt.repository.UserRoleRow;
+import com.duc.oauth2jwt.security.TokenVersionCache;
+import com.duc.oauth2jwt.security.UserDetailsCache;
+import com.duc.oauth2jwt.security.UserPrincipal;
+import com.duc.oauth2jwt.service.CacheInvalidationService;
+import com.duc.oauth2jwt.service.LoginAttemptService;
+import com.duc.oauth2jwt.service.RefreshTokenService;
+import com.duc.oauth2jwt.service.RoleRegistry;
+import com.duc.oauth2jwt.service.TokenVersionService;
 import com.duc.oauth2jwt.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,10 +28,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Instant;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,7 +49,15 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
+    @Mock
+    private CacheInvalidationService cacheInvalidationService;
+    @Mock
+    private RefreshTokenService refreshTokenService;
+    @Mock
+    private TokenVersionService tokenVersionService;
+    @Mock
+    private LoginAttemptService loginAttemptService;
     @Mock
     private Authentication authentication;
     @Mock
@@ -69,7 +97,7 @@ public class UserServiceTest {
         // Arrange
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getName()).thenReturn("test@example.com");
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(testUser));
+        when(userRepository.findRowsByEmail(anyString())).thenReturn(List.of(row(testUser, Role.RoleName.ROLE_USER)));
 
         // Act
         UserDto result = userService.getCurrentUser();
@@ -85,7 +113,8 @@ public class UserServiceTest {
 
         verify(securityContext).getAuthentication();
         verify(authentication).getName();
-        verify(userRepository).findByEmail("test@example.com");
+        verify(userRepository).findRowsByEmail("test@example.com");
+        verify(userRepository, never()).findByEmail(anyString());
     }
 
     @Test
@@ -93,20 +122,21 @@ public class UserServiceTest {
         // Arrange
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getName()).thenReturn("nonexistent@example.com");
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
+        when(userRepository.findRowsByEmail(anyString())).thenReturn(Collections.emptyList());
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> userService.getCurrentUser());
 
         verify(securityContext).getAuthentication();
         verify(authentication).getName();
-        verify(userRepository).findByEmail("nonexistent@example.com");
+        verify(userRepository).findRowsByEmail("nonexistent@example.com");
     }
 
     @Test
     void getUserById_Success() {
         // Arrange
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUser));
+        when(userRepository.findRowsById(anyLong())).thenReturn(List.of(
+                row(testUser, Role.RoleName.ROLE_USER), row(testUser, Role.RoleName.ROLE_ADMIN)));
 
         // Act
         UserDto result = userService.getUserById(1L);
@@ -115,49 +145,77 @@ public class UserServiceTest {
         assertNotNull(result);
         assertEquals(testUser.getId(), result.getId());
         assertEquals(testUser.getEmail(), result.getEmail());
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), result.getRoles());
 
-        verify(userRepository).findById(1L);
+        verify(userRepository).findRowsById(1L);
+        verify(userRepository, never()).findById(anyLong());
     }
 
     @Test
     void getUserById_UserNotFound() {
         // Arrange
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userRepository.findRowsById(anyLong())).thenReturn(Collections.emptyList());
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> userService.getUserById(999L));
 
-        verify(userRepository).findById(999L);
+        verify(userRepository).findRowsById(999L);
     }
 
     @Test
-    void getAllUsers_Success() {
+    void getUsers_ReturnsNextCursorWhenMoreRowsExist() {
         // Arrange
+        ReflectionTestUtils.setField(userService, "defaultPageSize", 1);
+        ReflectionTestUtils.setField(userService, "maxPageSize", 200);
         User user2 = new User();
         user2.setId(2L);
         user2.setEmail("user2@example.com");
         user2.setName("User Two");
         user2.setRoles(Collections.singleton(userRole));
 
-        when(userRepository.findAll()).thenReturn(Arrays.asList(testUser, user2));
+        when(userRepository.findIdPageAfter(0L, null, null, PageRequest.of(0, 2))).thenReturn(Arrays.asList(1L, 2L));
+        when(userRepository.findAllWithRolesByIdIn(List.of(1L))).thenReturn(List.of(testUser));
 
         // Act
-        List<UserDto> results = userService.getAllUsers();
+        UserPageDto page = userService.getUsers(null, null, null, null);
 
         // Assert
-        assertNotNull(results);
-        assertEquals(2, results.size());
-        assertEquals(testUser.getId(), results.get(0).getId());
-        assertEquals(user2.getId(), results.get(1).getId());
+        assertEquals(1, page.getItems().size());
+        assertEquals(testUser.getId(), page.getItems().get(0).getId());
+        assertNotNull(page.getNextCursor());
+
+        // The cursor resumes after the last returned id
+        when(userRepository.findIdPageAfter(1L, Role.RoleName.ROLE_USER, User.AuthProvider.LOCAL, PageRequest.of(0, 2)))
+                .thenReturn(Collections.singletonList(2L));
+        when(userRepository.findAllWithRolesByIdIn(List.of(2L))).thenReturn(List.of(user2));
+        UserPageDto nextPage = userService.getUsers(page.getNextCursor(), null, Role.RoleName.ROLE_USER, User.AuthProvider.LOCAL);
+        assertEquals(user2.getId(), nextPage.getItems().get(0).getId());
+        assertNull(nextPage.getNextCursor());
+        verify(userRepository, never()).findAll();
+    }
+
+    @Test
+    void getUsers_CapsPageSizeAndRejectsInvalidCursor() {
+        // Arrange
+        ReflectionTestUtils.setField(userService, "defaultPageSize", 50);
+        ReflectionTestUtils.setField(userService, "maxPageSize", 200);
+        when(userRepository.findIdPageAfter(0L, null, null, PageRequest.of(0, 201))).thenReturn(Collections.emptyList());
 
-        verify(userRepository).findAll();
+        // Act
+        UserPageDto page = userService.getUsers(null, 10_000, null, null);
+
+        // Assert
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+        verify(userRepository, never()).findAllWithRolesByIdIn(any());
+        assertThrows(BadRequestException.class, () -> userService.getUsers("not*a*cursor", null, null, null));
     }
 
     @Test
     void giveAdminRole_Success() {
         // Arrange
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUser));
-        when(roleRepository.findByName(Role.RoleName.ROLE_ADMIN)).thenReturn(Optional.of(adminRole));
+        when(roleRegistry.get(Role.RoleName.ROLE_ADMIN)).thenReturn(adminRole);
         when(userRepository.save(any(User.class))).thenReturn(testUser);
 
         // Act
@@ -166,8 +224,10 @@ public class UserServiceTest {
         // Assert
         assertNotNull(result);
         verify(userRepository).findById(1L);
-        verify(roleRepository).findByName(Role.RoleName.ROLE_ADMIN);
+        verify(roleRegistry).get(Role.RoleName.ROLE_ADMIN);
         verify(userRepository).save(testUser);
+        verify(cacheInvalidationService).invalidate(UserDetailsCache.CACHE_NAME, testUser.getEmail());
+        verify(tokenVersionService).bump(testUser.getEmail());
     }
 
     @Test
@@ -179,7 +239,29 @@ public class UserServiceTest {
         assertThrows(ResourceNotFoundException.class, () -> userService.giveAdminRole(999L));
 
         verify(userRepository).findById(999L);
-        verifyNoInteractions(roleRepository);
+        verifyNoInteractions(roleRegistry);
+    }
+
+    @Test
+    void unlockUser_Success() {
+        // Arrange
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUser));
+
+        // Act
+        userService.unlockUser(1L);
+
+        // Assert
+        verify(loginAttemptService).unlock(testUser.getEmail());
+    }
+
+    @Test
+    void unlockUser_UserNotFound() {
+        // Arrange
+        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> userService.unlockUser(999L));
+        verifyNoInteractions(loginAttemptService);
     }
 
     @Test
@@ -189,8 +271,8 @@ public class UserServiceTest {
         testUser.setRoles(new HashSet<>(Arrays.asList(userRole, adminRole)));
 
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUser));
-        when(roleRepository.findByName(Role.RoleName.ROLE_ADMIN)).thenReturn(Optional.of(adminRole));
-        when(roleRepository.findByName(Role.RoleName.ROLE_USER)).thenReturn(Optional.of(userRole));
+        when(roleRegistry.get(Role.RoleName.ROLE_ADMIN)).thenReturn(adminRole);
+        when(roleRegistry.get(Role.RoleName.ROLE_USER)).thenReturn(userRole);
         when(userRepository.save(any(User.class))).thenReturn(testUser);
 
         // Act
@@ -199,9 +281,11 @@ public class UserServiceTest {
         // Assert
         assertNotNull(result);
         verify(userRepository).findById(1L);
-        verify(roleRepository).findByName(Role.RoleName.ROLE_ADMIN);
-        verify(roleRepository).findByName(Role.RoleName.ROLE_USER);
+        verify(roleRegistry).get(Role.RoleName.ROLE_ADMIN);
+        verify(roleRegistry).get(Role.RoleName.ROLE_USER);
         verify(userRepository).save(testUser);
+        verify(cacheInvalidationService).invalidate(UserDetailsCache.CACHE_NAME, testUser.getEmail());
+        verify(tokenVersionService).bump(testUser.getEmail());
     }
 
     @Test
@@ -213,6 +297,192 @@ public class UserServiceTest {
         assertThrows(ResourceNotFoundException.class, () -> userService.removeAdminRole(999L));
 
         verify(userRepository).findById(999L);
-        verifyNoInteractions(roleRepository);
+        verifyNoInteractions(roleRegistry);
+    }
+
+    @Test
+    void updateRoles_GrantsInOneStatementPerChunkAndReportsEachId() {
+        // Arrange
+        ReflectionTestUtils.setField(userService, "bulkRoleBatchSize", 500);
+        ReflectionTestUtils.setField(userService, "bulkRoleMaxUsers", 10000);
+        ReflectionTestUtils.setField(userService, "bulkRoleInvalidateAllThreshold", 1000);
+        when(roleRegistry.get(Role.RoleName.ROLE_ADMIN)).thenReturn(adminRole);
+        when(userRepository.findRoleMembershipByIdIn(List.of(1L, 2L, 3L), 2L)).thenReturn(List.of(
+                membership(1L, "a@example.com", false),
+                membership(2L, "b@example.com", true)));
+        BulkRoleRequest request = BulkRoleRequest.builder()
+                .action(BulkRoleRequest.Action.GRANT)
+                .role(Role.RoleName.ROLE_ADMIN)
+                .userIds(List.of(1L, 2L, 3L, 1L))
+                .build();
+
+        // Act
+        BulkRoleResultDto result = userService.updateRoles(request);
+
+        // Assert
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getUnchanged());
+        assertEquals(1, result.getNotFound());
+        assertEquals(List.of(BulkRoleResultDto.Status.UPDATED, BulkRoleResultDto.Status.UNCHANGED,
+                        BulkRoleResultDto.Status.NOT_FOUND),
+                result.getResults().stream().map(BulkRoleResultDto.Item::getStatus).toList());
+        verify(userRepository).insertRole(List.of(1L), 2L);
+        verify(userRepository, never()).save(any(User.class));
+        verify(tokenVersionService).incrementAll(Set.of("a@example.com"));
+        verify(cacheInvalidationService).invalidate(UserDetailsCache.CACHE_NAME, "a@example.com");
+        verify(cacheInvalidationService).invalidate(TokenVersionCache.CACHE_NAME, "a@example.com");
+        verifyNoMoreInteractions(cacheInvalidationService);
+    }
+
+    @Test
+    void updateRoles_TokenVersionBumpFails_StillReturnsCommittedResultAndClearsCache() {
+        // Arrange
+        ReflectionTestUtils.setField(userService, "bulkRoleBatchSize", 500);
+        ReflectionTestUtils.setField(userService, "bulkRoleMaxUsers", 10000);
+        ReflectionTestUtils.setField(userService, "bulkRoleInvalidateAllThreshold", 1000);
+        when(roleRegistry.get(Role.RoleName.ROLE_ADMIN)).thenReturn(adminRole);
+        when(userRepository.findRoleMembershipByIdIn(List.of(1L), 2L)).thenReturn(List.of(
+                membership(1L, "a@example.com", false)));
+        doThrow(new RedisConnectionFailureException("Redis is down"))
+                .when(tokenVersionService).incrementAll(Set.of("a@example.com"));
+        BulkRoleRequest request = BulkRoleRequest.builder()
+                .action(BulkRoleRequest.Action.GRANT)
+                .role(Role.RoleName.ROLE_ADMIN)
+                .userIds(List.of(1L))
+                .build();
+
+        // Act
+        BulkRoleResultDto result = userService.updateRoles(request);
+
+        // Assert
+        assertEquals(1, result.getUpdated());
+        verify(userRepository).insertRole(List.of(1L), 2L);
+        verify(cacheInvalidationService).invalidate(UserDetailsCache.CACHE_NAME, "a@example.com");
+        verify(cacheInvalidationService).invalidate(TokenVersionCache.CACHE_NAME, "a@example.com");
+    }
+
+    @Test
+    void updateRoles_RevokesByFilterAndClearsCacheAboveThreshold() {
+        // Arrange
+        ReflectionTestUtils.setField(userService, "bulkRoleBatchSize", 2);
+        ReflectionTestUtils.setField(userService, "bulkRoleMaxUsers", 10000);
+        ReflectionTestUtils.setField(userService, "bulkRoleInvalidateAllThreshold", 2);
+        when(roleRegistry.get(Role.RoleName.ROLE_ADMIN)).thenReturn(adminRole);
+        when(userRepository.findIdPageAfter(0L, Role.RoleName.ROLE_ADMIN, User.AuthProvider.GOOGLE, PageRequest.of(0, 2)))
+                .thenReturn(List.of(4L, 7L));
+        when(userRepository.findIdPageAfter(7L, Role.RoleName.ROLE_ADMIN, User.AuthProvider.GOOGLE, PageRequest.of(0, 2)))
+                .thenReturn(List.of(9L));
+        when(userRepository.findRoleMembershipByIdIn(List.of(4L, 7L), 2L)).thenReturn(List.of(
+                membership(4L, "d@example.com", true),
+                membership(7L, "g@example.com", true)));
+        when(userRepository.findRoleMembershipByIdIn(List.of(9L), 2L)).thenReturn(List.of(
+                membership(9L, "i@example.com", true)));
+        BulkRoleRequest request = BulkRoleRequest.builder()
+                .action(BulkRoleRequest.Action.REVOKE)
+                .role(Role.RoleName.ROLE_ADMIN)
+                .filter(BulkRoleRequest.Filter.builder()
+                        .role(Role.RoleName.ROLE_ADMIN)
+                        .provider(User.AuthProvider.GOOGLE)
+                        .build())
+                .build();
+
+        // Act
+        BulkRoleResultDto result = userService.updateRoles(request);
+
+        // Assert
+        assertEquals(3, result.getUpdated());
+        verify(userRepository).deleteRole(List.of(4L, 7L), 2L);
+        verify(userRepository).deleteRole(List.of(9L), 2L);
+        verify(cacheInvalidationService).invalidateAll(UserDetailsCache.CACHE_NAME);
+        verify(cacheInvalidationService).invalidateAll(TokenVersionCache.CACHE_NAME);
+        verify(cacheInvalidationService, never()).invalidate(anyString(), anyString());
+    }
+
+    @Test
+    void updateRoles_RejectsRevokingUserRoleAndAmbiguousTargets() {
+        // Arrange
+        BulkRoleRequest revokeUser = BulkRoleRequest.builder()
+                .action(BulkRoleRequest.Action.REVOKE)
+                .role(Role.RoleName.ROLE_USER)
+                .userIds(List.of(1L))
+                .build();
+        BulkRoleRequest noTarget = BulkRoleRequest.builder()
+                .action(BulkRoleRequest.Action.GRANT)
+                .role(Role.RoleName.ROLE_ADMIN)
+                .build();
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> userService.updateRoles(revokeUser));
+        assertThrows(BadRequestException.class, () -> userService.updateRoles(noTarget));
+        verifyNoInteractions(userRepository, cacheInvalidationService);
+    }
+
+    @Test
+    void getCurrentUserSessions_UsesIdFromPrincipal() {
+        // Arrange
+        UserPrincipal principal = new UserPrincipal(1L, "test@example.com", null, Collections.emptyList(), Collections.emptyMap());
+        Instant expiryDate = Instant.now().plusSeconds(3600);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(principal);
+        when(refreshTokenService.findSessionsByUserId(1L)).thenReturn(List.of(
+                RefreshToken.builder().id("session-hash").userId(1L).expiryDate(expiryDate).build()));
+
+        // Act
+        List<SessionDto> sessions = userService.getCurrentUserSessions();
+
+        // Assert
+        assertEquals(1, sessions.size());
+        assertEquals("session-hash", sessions.get(0).getId());
+        assertEquals(expiryDate, sessions.get(0).getExpiresAt());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void logoutEverywhere_DeletesSessionsAndBumpsTokenVersion() {
+        // Arrange
+        UserPrincipal principal = new UserPrincipal(1L, "test@example.com", null, Collections.emptyList(), Collections.emptyMap());
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(principal);
+        when(authentication.getName()).thenReturn("test@example.com");
+
+        // Act
+        userService.logoutEverywhere();
+
+        // Assert
+        verify(refreshTokenService).deleteByUserId(1L);
+        verify(tokenVersionService).bump("test@example.com");
+    }
+
+    @Test
+    void revokeCurrentUserSessions_FallsBackToEmailLookup() {
+        // Arrange
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn("test@example.com");
+        when(authentication.getName()).thenReturn("test@example.com");
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+
+        // Act
+        userService.revokeCurrentUserSessions();
+
+        // Assert
+        verify(refreshTokenService).deleteByUserId(testUser.getId());
+    }
+
+    private UserRoleRow row(User user, Role.RoleName roleName) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", user.getId());
+        values.put("email", user.getEmail());
+        values.put("name", user.getName());
+        values.put("imageUrl", user.getImageUrl());
+        values.put("roleName", roleName);
+        return new SpelAwareProxyProjectionFactory().createProjection(UserRoleRow.class, values);
+    }
+
+    private UserRoleMembership membership(Long id, String email, boolean member) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", id);
+        values.put("email", email);
+        values.put("member", member);
+        return new SpelAwareProxyProjectionFactory().createProjection(UserRoleMembership.class, values);
     }
 }